@@ -0,0 +1,58 @@
+package com.spatiosoft.glidewall.benchmarks;
+
+import com.spatiosoft.glidewall.SlideDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-size slide decode through SlideDecoder at several output resolutions, with and without ImageIO source
+ * subsampling for large JPEGs. Needs a display for the JavaFX toolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DecodeBenchmark {
+    @Param({"4000x3000", "8000x6000"})
+    String source;
+
+    @Param({"1280x720", "1920x1080", "3840x2160"})
+    String target;
+
+    @Param({"true", "false"})
+    boolean subsample;
+
+    private Path file;
+    private SlideDecoder decoder;
+
+    @Setup
+    public void setup() throws Exception {
+        Fixtures.startFx();
+        int[] src = Fixtures.dimensions(source);
+        file = Fixtures.sampleJpeg(src[0], src[1]);
+        decoder = new SlideDecoder(64_000_000L, subsample, 10_000_000L);
+        int[] out = Fixtures.dimensions(target);
+        decoder.setTargetSize(out[0], out[1]);
+    }
+
+    @Benchmark
+    public SlideDecoder.DecodedSlide decode() {
+        SlideDecoder.DecodedSlide slide = decoder.decode(file);
+        if (slide == null) throw new IllegalStateException("decode failed: " + file);
+        return slide;
+    }
+}
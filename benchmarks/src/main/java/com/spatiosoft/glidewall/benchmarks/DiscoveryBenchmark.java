@@ -0,0 +1,64 @@
+package com.spatiosoft.glidewall.benchmarks;
+
+import com.spatiosoft.glidewall.ImageIndex;
+import com.spatiosoft.glidewall.IndexDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Tree discovery: the full walk, a catalog-seeded cold start, and the single-directory rescan after an overflow. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DiscoveryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int files;
+
+    private Path root;
+    private List<Path> known;
+    private ImageIndex populated;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Fixtures.tree(files);
+        populated = new ImageIndex(root);
+        populated.fullScan();
+        known = populated.snapshot();
+    }
+
+    @Benchmark
+    public IndexDiff fullScan() throws IOException {
+        return new ImageIndex(root).fullScan();
+    }
+
+    @Benchmark
+    public IndexDiff auditUnchangedTree() throws IOException {
+        return populated.fullScan();
+    }
+
+    @Benchmark
+    public IndexDiff seedFromCatalog() {
+        return new ImageIndex(root).seed(known);
+    }
+
+    @Benchmark
+    public IndexDiff rescanOneDirectory() throws IOException {
+        return populated.rescanDirectory(Fixtures.firstLeaf(root));
+    }
+}
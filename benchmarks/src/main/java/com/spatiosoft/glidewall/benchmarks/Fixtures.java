@@ -0,0 +1,94 @@
+package com.spatiosoft.glidewall.benchmarks;
+
+import javafx.application.Platform;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Synthetic inputs shared by the suites. Everything is generated under {@code -Dglidewall.bench.dir}
+ * (default: java.io.tmpdir/glidewall-bench) and reused across runs, since a 1M-file tree takes minutes to create.
+ */
+final class Fixtures {
+    private static final int FILES_PER_DIR = 100;
+    private static final int DIRS_PER_DIR = 32;
+
+    private Fixtures() {}
+
+    static Path baseDir() throws IOException {
+        String dir = System.getProperty("glidewall.bench.dir");
+        Path base = dir != null ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "glidewall-bench");
+        return Files.createDirectories(base);
+    }
+
+    /** A tree of {@code files} empty .jpg files, 100 per directory, fanned out 32 directories per level. */
+    static Path tree(int files) throws IOException {
+        Path root = baseDir().resolve("tree-" + files);
+        Path marker = root.resolve(".complete");
+        if (Files.exists(marker)) return root;
+        Files.createDirectories(root);
+        int dirCount = (files + FILES_PER_DIR - 1) / FILES_PER_DIR;
+        int written = 0;
+        for (int d = 0; d < dirCount; d++) {
+            Path dir = root.resolve(String.format("d%03d", d / (DIRS_PER_DIR * DIRS_PER_DIR)))
+                    .resolve(String.format("d%02d", (d / DIRS_PER_DIR) % DIRS_PER_DIR))
+                    .resolve(String.format("d%02d", d % DIRS_PER_DIR));
+            Files.createDirectories(dir);
+            for (int f = 0; f < FILES_PER_DIR && written < files; f++, written++) {
+                Path p = dir.resolve("img" + f + ".jpg");
+                if (!Files.exists(p)) Files.createFile(p);
+            }
+        }
+        Files.createFile(marker);
+        return root;
+    }
+
+    /** First directory of {@link #tree(int)} that holds files. */
+    static Path firstLeaf(Path tree) {
+        return tree.resolve("d000").resolve("d00").resolve("d00");
+    }
+
+    /** A photo-like JPEG (gradient + noise, so it does not compress to nothing) of the given size. */
+    static Path sampleJpeg(int width, int height) throws IOException {
+        Path file = baseDir().resolve("sample-" + width + "x" + height + ".jpg");
+        if (Files.exists(file)) return file;
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(30, 80, 160), width, height, new Color(220, 170, 60)));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        Random random = new Random(42);
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) img.setRGB(x, y, img.getRGB(x, y) ^ (random.nextInt() & 0x0F0F0F));
+        }
+        Path tmp = Files.createTempFile(file.getParent(), "sample", ".tmp");
+        ImageIO.write(img, "jpg", tmp.toFile());
+        Files.move(tmp, file);
+        return file;
+    }
+
+    static int[] dimensions(String spec) {
+        String[] parts = spec.split("x");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /** javafx.scene.image.Image needs a running toolkit (and therefore a display, or Monocle). */
+    static void startFx() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException alreadyRunning) {
+            started.countDown();
+        }
+        started.await();
+    }
+}
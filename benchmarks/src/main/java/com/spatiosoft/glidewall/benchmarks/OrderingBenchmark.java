@@ -0,0 +1,104 @@
+package com.spatiosoft.glidewall.benchmarks;
+
+import com.spatiosoft.glidewall.PlaylistScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Play-order maintenance: a full reshuffle and merging an upload burst into a copied list, versus the same burst
+ * added to (and removed from) a {@link PlaylistScheduler}, and advancing the scheduler by one slide.
+ * The list operations work on a fresh copy; {@link #copyBaseline()} measures that copy alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OrderingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"200"})
+    int burst;
+
+    private List<Path> order;
+    private List<Path> added;
+    private PlaylistScheduler scheduler;
+    private final Random random = new Random(7);
+
+    @Setup
+    public void setup() {
+        order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) order.add(Paths.get("/wall", "d" + (i / 100), "img" + i + ".jpg"));
+        added = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) added.add(Paths.get("/wall", "uploads", "new" + i + ".jpg"));
+        scheduler = new PlaylistScheduler(new Random(7));
+        scheduler.add(order, false);
+    }
+
+    @Benchmark
+    public List<Path> copyBaseline() {
+        return new ArrayList<>(order);
+    }
+
+    @Benchmark
+    public List<Path> fullShuffle() {
+        List<Path> copy = new ArrayList<>(order);
+        Collections.shuffle(copy, random);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Path> mergeBurst() {
+        List<Path> copy = new ArrayList<>(order);
+        mergeAtRandomSlots(copy, added, random);
+        return copy;
+    }
+
+    @Benchmark
+    public Path schedulerBurst() {
+        scheduler.add(added, false);
+        scheduler.remove(added);
+        return scheduler.current();
+    }
+
+    @Benchmark
+    public Path schedulerNext() {
+        return scheduler.next();
+    }
+
+    // The controller's previous strategy: one O(n + k log k) pass that rebuilds the list with the burst at random slots.
+    private static <T> void mergeAtRandomSlots(List<T> order, List<T> added, Random random) {
+        int n = order.size();
+        int[] slots = new int[added.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = random.nextInt(n + 1);
+        Arrays.sort(slots);
+        List<T> merged = new ArrayList<>(n + added.size());
+        int a = 0;
+        for (int i = 0; i <= n; i++) {
+            while (a < slots.length && slots[a] == i) merged.add(added.get(a++));
+            if (i < n) merged.add(order.get(i));
+        }
+        order.clear();
+        order.addAll(merged);
+    }
+}
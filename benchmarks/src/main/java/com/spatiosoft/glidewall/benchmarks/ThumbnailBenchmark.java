@@ -0,0 +1,75 @@
+package com.spatiosoft.glidewall.benchmarks;
+
+import com.spatiosoft.glidewall.ThumbnailCache;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thumbnail generation: the FX decoder at 120x90, ThumbnailCache's own miss path (ImageIO with source
+ * subsampling, plus the placeholder copy) and loading the persisted disk-tier JPEG (disk hit). Needs a display for
+ * the JavaFX toolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ThumbnailBenchmark {
+    @Param({"1920x1080", "4000x3000"})
+    String source;
+
+    private String originalUri;
+    private String storedUri;
+    private Path original;
+    private ThumbnailCache cache;
+
+    @Setup
+    public void setup() throws Exception {
+        Fixtures.startFx();
+        int[] dims = Fixtures.dimensions(source);
+        original = Fixtures.sampleJpeg(dims[0], dims[1]);
+        cache = new ThumbnailCache(120, 90, 1 << 20, null);
+        originalUri = original.toUri().toString();
+        Path stored = Fixtures.baseDir().resolve("thumb-" + source + ".jpg");
+        if (!Files.exists(stored)) {
+            Image thumb = new Image(originalUri, 120, 90, true, true, false);
+            var rgb = new java.awt.image.BufferedImage((int) thumb.getWidth(), (int) thumb.getHeight(), java.awt.image.BufferedImage.TYPE_INT_RGB);
+            rgb.createGraphics().drawImage(SwingFXUtils.fromFXImage(thumb, null), 0, 0, null);
+            ImageIO.write(rgb, "jpg", stored.toFile());
+        }
+        storedUri = stored.toUri().toString();
+    }
+
+    @Benchmark
+    public Image decodeFromOriginal() {
+        return new Image(originalUri, 120, 90, true, true, false);
+    }
+
+    @Benchmark
+    public Image cacheMiss() {
+        cache.remove(original);
+        return cache.get(original);
+    }
+
+    @Benchmark
+    public Image loadFromDiskTier() {
+        return new Image(storedUri, false);
+    }
+}
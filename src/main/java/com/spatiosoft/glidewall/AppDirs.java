@@ -0,0 +1,22 @@
+package com.spatiosoft.glidewall;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** Per-user locations for GlideWall's persistent caches. */
+public final class AppDirs {
+    private AppDirs() {}
+
+    /** Cache root: {@code -Dglidewall.cacheDir}, else $XDG_CACHE_HOME/glidewall, else ~/.cache/glidewall. */
+    public static Path cacheDir() {
+        String override = System.getProperty("glidewall.cacheDir");
+        if (override != null && !override.isBlank()) return Paths.get(override);
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        if (xdg != null && !xdg.isBlank()) return Paths.get(xdg, "glidewall");
+        return Paths.get(System.getProperty("user.home"), ".cache", "glidewall");
+    }
+
+    public static Path cacheDir(String child) {
+        return cacheDir().resolve(child);
+    }
+}
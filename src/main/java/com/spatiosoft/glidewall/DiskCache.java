@@ -0,0 +1,157 @@
+package com.spatiosoft.glidewall;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A directory of files derived from source images (thumbnails, renditions), kept under a byte budget.
+ * <p>
+ * Each entry is named after its source and the source version ({@code <source hash>-<version hash>}), so storing
+ * the entry of a new version deletes the one it supersedes, and {@link #remove(Path)} drops everything stored for
+ * a source that is gone. Beyond the budget the least recently used entries are deleted; recency is tracked in
+ * memory and seeded from the file mtimes when the directory is first used. Thread-safe; the first call lists the
+ * directory, so it belongs on a background thread.
+ */
+public class DiskCache {
+    private final Path dir;
+    private final long maxBytes;
+    private final String suffix;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(1024, 0.75f, true); // file name -> bytes, eldest first
+    private final Map<String, String> bySource = new HashMap<>(); // source hash -> file name of its current entry
+    private long bytes;
+    private long evictions;
+    private boolean loaded;
+
+    /** @param suffix file name suffix of the entries, e.g. {@code .jpg} */
+    public DiskCache(Path dir, long maxBytes, String suffix) {
+        this.dir = dir;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.suffix = suffix;
+    }
+
+    /** Where the entry of {@code source} at {@code version} (anything that changes with its content) is stored. */
+    public Path path(Path source, String version) {
+        String s = hash(source.toAbsolutePath().toString());
+        return dir.resolve(s.substring(0, 2)).resolve(s + "-" + hash(version).substring(0, 16) + suffix);
+    }
+
+    /** {@code entry} if it is stored, counted as a use; null otherwise. */
+    public Path get(Path entry) {
+        load();
+        String name = entry.getFileName().toString();
+        synchronized (this) {
+            if (entries.get(name) != null) return entry;
+        }
+        if (!Files.isRegularFile(entry)) return null;
+        stored(entry); // written by an earlier run after the directory was listed
+        return entry;
+    }
+
+    /** Records {@code entry} as written: deletes the entry it supersedes and evicts down to the budget. */
+    public void stored(Path entry) {
+        load();
+        long size;
+        try { size = Files.size(entry); } catch (IOException e) { return; }
+        String name = entry.getFileName().toString();
+        List<String> delete = new ArrayList<>();
+        synchronized (this) {
+            String previous = bySource.put(source(name), name);
+            if (previous != null && !previous.equals(name)) { forget(previous); delete.add(previous); }
+            Long old = entries.put(name, size);
+            bytes += size - (old == null ? 0 : old);
+            trim(name, delete);
+        }
+        for (String n : delete) delete(n);
+    }
+
+    /** Deletes what is stored for {@code source}, e.g. after the original was deleted. */
+    public void remove(Path source) {
+        load();
+        String name;
+        synchronized (this) {
+            name = bySource.remove(hash(source.toAbsolutePath().toString()));
+            if (name != null) forget(name);
+        }
+        if (name != null) delete(name);
+    }
+
+    public synchronized long bytes() { return bytes; }
+
+    public synchronized long evictions() { return evictions; }
+
+    // Evicts least recently used entries other than {@code keep} until the budget holds.
+    private void trim(String keep, List<String> delete) {
+        for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            it.remove();
+            bytes -= eldest.getValue();
+            bySource.remove(source(eldest.getKey()), eldest.getKey());
+            delete.add(eldest.getKey());
+            evictions++;
+        }
+    }
+
+    private void forget(String name) {
+        Long size = entries.remove(name);
+        if (size != null) bytes -= size;
+    }
+
+    private void delete(String name) {
+        try { Files.deleteIfExists(dir.resolve(name.substring(0, 2)).resolve(name)); } catch (IOException ignored) {}
+    }
+
+    // Oldest first, so entries nobody asked for since the last run are the first to go.
+    private synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.isDirectory(dir)) return;
+        record Found(String name, long size, long mtime) {}
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            files.filter(p -> p.getFileName().toString().endsWith(suffix)).forEach(p -> {
+                try {
+                    BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+                    if (a.isRegularFile()) found.add(new Found(p.getFileName().toString(), a.size(), a.lastModifiedTime().toMillis()));
+                } catch (IOException ignored) {} // deleted meanwhile
+            });
+        } catch (IOException | RuntimeException ignored) {}
+        found.sort(Comparator.comparingLong(Found::mtime));
+        List<String> delete = new ArrayList<>();
+        for (Found f : found) {
+            entries.put(f.name(), f.size());
+            bytes += f.size();
+            String previous = bySource.put(source(f.name()), f.name());
+            if (previous != null) { forget(previous); delete.add(previous); } // an older version left behind
+        }
+        trim(null, delete); // the budget may have been lowered since
+        for (String n : delete) delete(n);
+    }
+
+    private static String source(String name) {
+        int dash = name.indexOf('-');
+        return dash < 0 ? name : name.substring(0, dash);
+    }
+
+    private static String hash(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return String.format("%08x%08x", s.hashCode(), s.length()) + "0".repeat(24);
+        }
+    }
+}
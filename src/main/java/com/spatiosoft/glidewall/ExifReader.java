@@ -0,0 +1,184 @@
+package com.spatiosoft.glidewall;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads the few JPEG header fields the slideshow needs (EXIF orientation, capture time, pixel size) without
+ * decoding the image: segments are walked marker by marker and everything after the frame header is never read,
+ * so a 12 MP photo costs a few KB of I/O. Other formats report orientation 1 and unknown size/date.
+ */
+public final class ExifReader {
+    /** Header fields of one file; {@code width}/{@code height} as stored (before orientation), 0 / -1 if unknown. */
+    public record Exif(int orientation, long captureTime, int width, int height) {
+        public static final Exif NONE = new Exif(1, -1, 0, 0);
+
+        /** True if the stored pixels must be turned by 90° to display, so width and height swap. */
+        public boolean transposed() { return orientation >= 5 && orientation <= 8; }
+    }
+
+    // APP1 segments are at most 64 KB; this bounds how much of a damaged file is scanned for the frame header.
+    private static final int MAX_HEADER_BYTES = 256 * 1024;
+    private static final DateTimeFormatter EXIF_DATE = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private ExifReader() {}
+
+    /** Header fields of {@code file}; {@link Exif#NONE} if it is not a JPEG or cannot be read. */
+    public static Exif read(Path file) {
+        try (InputStream raw = Files.newInputStream(file); DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 8192))) {
+            if (in.readUnsignedShort() != 0xFFD8) return Exif.NONE;
+            Exif exif = Exif.NONE;
+            long consumed = 2;
+            while (consumed < MAX_HEADER_BYTES) {
+                int marker = in.readUnsignedByte();
+                if (marker != 0xFF) return exif; // lost sync: keep what was found
+                int type = in.readUnsignedByte();
+                while (type == 0xFF) type = in.readUnsignedByte(); // fill bytes
+                if (type == 0xD9 || type == 0xDA) return exif; // end of image / start of scan: no frame header
+                if (type == 0x01 || (type >= 0xD0 && type <= 0xD7)) continue; // markers without a length
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return exif;
+                consumed += 4 + length;
+                if (type == 0xE1 && exif == Exif.NONE) {
+                    byte[] segment = in.readNBytes(length);
+                    if (segment.length < length) return exif;
+                    exif = parseApp1(segment);
+                } else if (isStartOfFrame(type) && length >= 5) {
+                    in.readUnsignedByte(); // sample precision
+                    int height = in.readUnsignedShort(), width = in.readUnsignedShort();
+                    return new Exif(exif.orientation, exif.captureTime, width, height);
+                } else in.skipNBytes(length);
+            }
+            return exif;
+        } catch (IOException | RuntimeException e) { // includes EOFException on truncated files
+            return Exif.NONE;
+        }
+    }
+
+    /** Just the orientation (1..8) of {@code file}; 1 when unknown. */
+    public static int orientation(Path file) { return read(file).orientation(); }
+
+    /**
+     * Turns row-major pixels as stored into display orientation (EXIF orientation 1..8). The result is
+     * {@code height x width} when the orientation is transposed; orientation 1 returns {@code pixels} itself.
+     */
+    public static int[] orient(int[] pixels, int width, int height, int orientation) {
+        if (orientation <= 1 || orientation > 8) return pixels;
+        int[] out = new int[pixels.length];
+        boolean t = orientation >= 5;
+        int ow = t ? height : width, oh = t ? width : height;
+        for (int y = 0; y < oh; y++) {
+            int row = y * ow;
+            for (int x = 0; x < ow; x++) {
+                int sx, sy;
+                switch (orientation) {
+                    case 2 -> { sx = width - 1 - x; sy = y; }
+                    case 3 -> { sx = width - 1 - x; sy = height - 1 - y; }
+                    case 4 -> { sx = x; sy = height - 1 - y; }
+                    case 5 -> { sx = y; sy = x; }
+                    case 6 -> { sx = y; sy = height - 1 - x; }
+                    case 7 -> { sx = width - 1 - y; sy = height - 1 - x; }
+                    default -> { sx = width - 1 - y; sy = x; } // 8
+                }
+                out[row + x] = pixels[sy * width + sx];
+            }
+        }
+        return out;
+    }
+
+    private static boolean isStartOfFrame(int type) {
+        return type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC;
+    }
+
+    // "Exif\0\0" followed by a TIFF structure: IFD0 holds the orientation, the EXIF sub-IFD the capture time.
+    private static Exif parseApp1(byte[] s) {
+        if (s.length < 14 || s[0] != 'E' || s[1] != 'x' || s[2] != 'i' || s[3] != 'f' || s[4] != 0 || s[5] != 0) return Exif.NONE;
+        Tiff t = new Tiff(s, 6);
+        int orientation = 1;
+        long captured = -1;
+        int exifIfd = -1;
+        int ifd0 = t.u32(4);
+        int n = t.u16(ifd0);
+        for (int i = 0; i < n; i++) {
+            int e = ifd0 + 2 + i * 12;
+            int tag = t.u16(e);
+            if (tag == 0x0112) orientation = t.u16(e + 8);
+            else if (tag == 0x8769) exifIfd = t.u32(e + 8);
+            else if (tag == 0x0132 && captured < 0) captured = parseDate(t.ascii(e), null); // DateTime, if nothing better
+        }
+        if (exifIfd > 0) {
+            String original = null, offset = null;
+            int m = t.u16(exifIfd);
+            for (int i = 0; i < m; i++) {
+                int e = exifIfd + 2 + i * 12;
+                int tag = t.u16(e);
+                if (tag == 0x9003) original = t.ascii(e); // DateTimeOriginal
+                else if (tag == 0x9011) offset = t.ascii(e); // OffsetTimeOriginal, e.g. "+02:00"
+            }
+            long taken = parseDate(original, offset);
+            if (taken > 0) captured = taken;
+        }
+        if (orientation < 1 || orientation > 8) orientation = 1;
+        return new Exif(orientation, captured, 0, 0);
+    }
+
+    // EXIF dates carry no zone unless OffsetTimeOriginal is present; read them as local time of this machine.
+    private static long parseDate(String value, String offset) {
+        if (value == null || value.length() < 19) return -1;
+        try {
+            LocalDateTime local = LocalDateTime.parse(value.substring(0, 19), EXIF_DATE);
+            ZoneId zone = ZoneId.systemDefault();
+            if (offset != null) { try { zone = ZoneOffset.of(offset.trim()); } catch (RuntimeException ignored) {} }
+            return local.atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1; // "0000:00:00 00:00:00" and other placeholders
+        }
+    }
+
+    // Bounds-checked view of a TIFF block in either byte order; out-of-range reads yield 0 / null.
+    private static final class Tiff {
+        private final byte[] b;
+        private final int base;
+        private final boolean little;
+
+        Tiff(byte[] b, int base) {
+            this.b = b;
+            this.base = base;
+            this.little = b[base] == 'I';
+        }
+
+        int u16(int off) {
+            int p = base + off;
+            if (off < 0 || p + 2 > b.length) return 0;
+            int a = b[p] & 0xFF, c = b[p + 1] & 0xFF;
+            return little ? a | c << 8 : a << 8 | c;
+        }
+
+        int u32(int off) {
+            int hi = u16(little ? off + 2 : off), lo = u16(little ? off : off + 2);
+            return hi << 16 | lo;
+        }
+
+        // ASCII value of the IFD entry at offset entry: inline if it fits in 4 bytes, else at its value offset.
+        String ascii(int entry) {
+            if (u16(entry + 2) != 2) return null;
+            int count = u32(entry + 4);
+            int off = count <= 4 ? entry + 8 : u32(entry + 8);
+            int p = base + off;
+            if (count <= 0 || count > b.length || off < 0 || p + count > b.length) return null;
+            int len = count;
+            while (len > 0 && b[p + len - 1] == 0) len--;
+            return new String(b, p, len, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.spatiosoft.glidewall;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Watches every directory below a root and forwards the raw events to a {@link WatchEventBatcher}.
+ * <p>
+ * Directories get a WatchService registration while the OS allows it. Once the OS refuses a registration (on Linux: the
+ * inotify watch limit) or {@code -Dglidewall.watch.maxDirs} is reached, the remaining directories are polled
+ * instead: their mtime is checked on a schedule that backs off from {@code pollMinMillis} to {@code pollMaxMillis}
+ * while a directory stays unchanged and snaps back to the minimum when it changes, so busy upload folders are
+ * checked often and the quiet bulk of a huge tree costs one stat per directory per minute. A changed directory is
+ * listed once: new entries become create events (still gated by the batcher's size/mtime stability check), anything
+ * else (deletions, renames) becomes a re-listing of that one directory. {@link #coverage()} reports the split.
+ * <p>
+ * Registration runs on the watcher thread, so {@link #start()} returns at once even for very large trees; events
+ * that arrive meanwhile are queued by the WatchService.
+ */
+public class FolderWatcher implements AutoCloseable {
+    /** How the tree is covered: directories with a watch registration, directories polled, registrations refused. */
+    public record Coverage(int watched, int polled, long failures) {
+        public double watchedRatio() {
+            int total = watched + polled;
+            return total == 0 ? 1 : (double) watched / total;
+        }
+    }
+
+    private static final int MAX_WATCHED = Integer.getInteger("glidewall.watch.maxDirs", Integer.MAX_VALUE);
+    private static final long POLL_MIN_MILLIS = Long.getLong("glidewall.watch.pollMinMillis", 2000);
+    private static final long POLL_MAX_MILLIS = Math.max(POLL_MIN_MILLIS, Long.getLong("glidewall.watch.pollMaxMillis", 60_000));
+
+    private static final class Poll implements Comparable<Poll> {
+        final Path dir;
+        FileTime mtime;
+        int entries = -1; // unknown until the first check lists the directory
+        long interval = POLL_MIN_MILLIS;
+        long due;
+
+        Poll(Path dir, FileTime mtime) { this.dir = dir; this.mtime = mtime; }
+
+        @Override public int compareTo(Poll o) { return Long.compare(due, o.due); }
+    }
+
+    private final Path root;
+    private final WatchEventBatcher batcher;
+    private final Consumer<Coverage> onRegistered;
+    private final Set<Path> watched = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Poll> polled = new HashMap<>(); // guarded by pollQueue
+    private final PriorityQueue<Poll> pollQueue = new PriorityQueue<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder pollChecks = new LongAdder();
+    private volatile boolean watchesExhausted;
+    private WatchService watchService;
+    private Thread loop;
+    private Thread poller;
+
+    /** {@code onRegistered} receives the coverage once the initial registration walk is done (watcher thread). */
+    public FolderWatcher(Path root, WatchEventBatcher batcher, Consumer<Coverage> onRegistered) {
+        this.root = root;
+        this.batcher = batcher;
+        this.onRegistered = onRegistered;
+    }
+
+    public FolderWatcher(Path root, WatchEventBatcher batcher) {
+        this(root, batcher, c -> {});
+    }
+
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        WatchService ws = watchService;
+        loop = new Thread(() -> {
+            try { registerAll(root); } catch (IOException ignored) {}
+            if (Thread.currentThread().isInterrupted()) return;
+            onRegistered.accept(coverage());
+            processWatchEvents(ws);
+        }, "folder-watcher");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    public Coverage coverage() {
+        synchronized (pollQueue) { return new Coverage(watched.size(), polled.size(), failures.sum()); }
+    }
+
+    /** Directory mtime checks done by the poller so far. */
+    public long pollCount() { return pollChecks.sum(); }
+
+    private void registerAll(Path start) throws IOException {
+        if (!start.equals(root) && ImageIndex.isHiddenDirectory(start)) return; // not indexed, so not watched either
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (Thread.currentThread().isInterrupted()) return FileVisitResult.TERMINATE; // closed mid-walk
+                if (!dir.equals(start) && ImageIndex.isHiddenDirectory(dir)) return FileVisitResult.SKIP_SUBTREE;
+                if (!register(dir)) poll(dir, attrs.lastModifiedTime());
+                return FileVisitResult.CONTINUE;
+            }
+            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) { return FileVisitResult.CONTINUE; }
+            @Override public FileVisitResult visitFileFailed(Path file, IOException exc) { return FileVisitResult.CONTINUE; }
+        });
+    }
+
+    // Once the OS refused one registration the rest would fail too; do not pay a failing syscall per directory.
+    // Failures that concern only this directory (gone, not readable) leave the others watched. False: poll it.
+    private boolean register(Path dir) {
+        WatchService ws = watchService;
+        if (ws == null || watched.contains(dir)) return ws != null;
+        if (watchesExhausted || watched.size() >= MAX_WATCHED) return false;
+        try {
+            dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watched.add(dir);
+            return true;
+        } catch (NoSuchFileException e) {
+            failures.increment();
+            return true; // removed meanwhile: nothing to watch or poll, its parent reports the deletion
+        } catch (AccessDeniedException e) {
+            failures.increment();
+            return false;
+        } catch (IOException e) {
+            failures.increment();
+            watchesExhausted = true;
+            return false;
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        }
+    }
+
+    private void processWatchEvents(WatchService ws) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try { key = ws.take(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; } catch (ClosedWatchServiceException cwse) { break; }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                WatchEvent.Kind<?> kind = event.kind();
+                if (kind == StandardWatchEventKinds.OVERFLOW) { batcher.rescan(dir); continue; }
+                Path child = dir.resolve((Path) event.context());
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                    if (Files.isDirectory(child)) {
+                        try { registerAll(child); } catch (IOException ignored) {}
+                        batcher.event(WatchEventBatcher.Kind.DIRECTORY_CREATED, child);
+                    } else batcher.event(WatchEventBatcher.Kind.CREATED, child);
+                } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) batcher.event(WatchEventBatcher.Kind.DELETED, child);
+                else if (kind == StandardWatchEventKinds.ENTRY_MODIFY && !Files.isDirectory(child)) batcher.event(WatchEventBatcher.Kind.MODIFIED, child);
+            }
+            if (!key.reset()) { watched.remove(dir); batcher.rescan(dir); } // directory gone or unwatchable: let the index re-list it
+        }
+    }
+
+    private void poll(Path dir, FileTime mtime) {
+        synchronized (pollQueue) {
+            if (polled.containsKey(dir)) return;
+            Poll p = new Poll(dir, mtime);
+            p.due = System.currentTimeMillis() + ThreadLocalRandom.current().nextLong(POLL_MIN_MILLIS); // spread the first round
+            polled.put(dir, p);
+            pollQueue.add(p);
+            pollQueue.notifyAll();
+            if (poller == null && watchService != null) {
+                poller = new Thread(this::pollLoop, "folder-poller");
+                poller.setDaemon(true);
+                poller.setPriority(Thread.MIN_PRIORITY);
+                poller.start();
+            }
+        }
+    }
+
+    private void pollLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Poll p;
+            synchronized (pollQueue) {
+                p = pollQueue.peek();
+                long wait = p == null ? POLL_MAX_MILLIS : p.due - System.currentTimeMillis();
+                if (wait > 0) {
+                    try { pollQueue.wait(wait); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                    continue;
+                }
+                pollQueue.poll();
+            }
+            boolean exists = check(p);
+            synchronized (pollQueue) {
+                if (!exists) polled.remove(p.dir); // its parent reports the deletion
+                else if (polled.get(p.dir) == p) { p.due = System.currentTimeMillis() + p.interval; pollQueue.add(p); }
+            }
+        }
+    }
+
+    // Returns false once the directory is gone.
+    private boolean check(Poll p) {
+        pollChecks.increment();
+        FileTime mtime;
+        try { mtime = Files.getLastModifiedTime(p.dir); } catch (IOException e) { return false; }
+        if (mtime.equals(p.mtime) && p.entries >= 0) {
+            p.interval = Math.min(POLL_MAX_MILLIS, p.interval * 2);
+            return true;
+        }
+        boolean changed = !mtime.equals(p.mtime);
+        int entries = 0, fresh = 0;
+        List<Path> created = new ArrayList<>(), createdDirs = new ArrayList<>();
+        try (DirectoryStream<Path> list = Files.newDirectoryStream(p.dir)) {
+            for (Path child : list) {
+                entries++;
+                if (!changed) continue;
+                BasicFileAttributes a;
+                try { a = Files.readAttributes(child, BasicFileAttributes.class); } catch (IOException e) { continue; }
+                if (a.isDirectory()) {
+                    if (watched.contains(child) || isPolled(child)) continue;
+                    fresh++;
+                    if (!ImageIndex.isHiddenDirectory(child)) createdDirs.add(child);
+                } else if (a.lastModifiedTime().compareTo(p.mtime) >= 0) {
+                    fresh++;
+                    created.add(child);
+                }
+            }
+        } catch (IOException e) {
+            return Files.isDirectory(p.dir);
+        }
+        int before = p.entries;
+        p.mtime = mtime;
+        p.entries = entries;
+        if (!changed) { p.interval = Math.min(POLL_MAX_MILLIS, p.interval * 2); return true; } // first check: baseline only
+        p.interval = POLL_MIN_MILLIS;
+        for (Path d : createdDirs) {
+            try { registerAll(d); } catch (IOException ignored) {}
+            batcher.event(WatchEventBatcher.Kind.DIRECTORY_CREATED, d);
+        }
+        for (Path f : created) batcher.event(WatchEventBatcher.Kind.CREATED, f);
+        // Entry count not explained by new entries alone: something was deleted or renamed in place.
+        if (before < 0 || entries != before + fresh) batcher.rescan(p.dir);
+        return true;
+    }
+
+    private boolean isPolled(Path dir) {
+        synchronized (pollQueue) { return polled.containsKey(dir); }
+    }
+
+    @Override
+    public void close() {
+        if (loop != null) { loop.interrupt(); loop = null; }
+        synchronized (pollQueue) {
+            if (poller != null) { poller.interrupt(); poller = null; }
+            polled.clear();
+            pollQueue.clear();
+        }
+        if (watchService != null) { try { watchService.close(); } catch (IOException ignored) {} watchService = null; }
+        watched.clear();
+        batcher.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.spatiosoft.glidewall;
+
+/**
+ * Follows JavaFX pulses while an animation runs and counts missed frames: every pulse gap longer than one and a
+ * half frame intervals adds the number of frames that should have been drawn in between. Fed from the animation's
+ * own timer, so no extra pulse listener is needed. FX thread only.
+ */
+public class FrameMonitor {
+    private static final long FRAME_NANOS = 1_000_000_000L / Math.max(1, Integer.getInteger("glidewall.metrics.refreshRate", 60));
+
+    private long lastPulse = -1;
+    private long dropped;
+
+    public void start() {
+        lastPulse = -1;
+        dropped = 0;
+    }
+
+    /** Records a pulse at {@code now} and returns the gap to the previous one, or -1 for the first pulse. */
+    public long pulse(long now) {
+        long gap = lastPulse < 0 ? -1 : now - lastPulse;
+        if (gap > FRAME_NANOS * 3 / 2) dropped += Math.round((double) gap / FRAME_NANOS) - 1;
+        lastPulse = now;
+        return gap;
+    }
+
+    /** Returns the number of frames missed since {@link #start()}. */
+    public long finish() {
+        return dropped;
+    }
+}
@@ -0,0 +1,238 @@
+package com.spatiosoft.glidewall;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed set of off-heap slide frames, recycled between slides.
+ * <p>
+ * Each frame is a direct buffer wrapped in a {@link PixelBuffer} and one {@link WritableImage} that lives as long as
+ * the frame, sized to the decode bounds of the display. A slide only fills the top-left part of a frame; views show
+ * that part through {@link #viewport(Image)}. Decoding into a recycled frame therefore allocates no pixel memory on
+ * the Java heap, and 4K walls with short intervals stop producing a humongous object per slide.
+ * <p>
+ * Frames are reference counted: the decoder hands out a frame with one reference, every holder that keeps a slide
+ * (look-ahead entry, pending UI update, image view) retains it and releases it when done, and a frame with no
+ * references goes back to the pool. When all frames are taken, or the display grew beyond the frame size and no
+ * more frames may be allocated, {@link #acquire} returns null and the decoder falls back to a heap image.
+ * <p>
+ * Decoders write a frame's buffer directly, outside {@link PixelBuffer#updateBuffer}, so a frame must not be
+ * refilled while the renderer may still read it. Hence a frame that was shown ({@link #attach}) after its last fill
+ * is not reused as soon as its last reference is dropped: it first cools for two FX pulses. By then every view has
+ * let go of it (a view holds a reference while it shows the frame) and the render pass of the last pulse that could
+ * include it has finished, since each pulse waits for the previous render before it syncs the scene. Frames that
+ * were never shown (dropped look-ahead, headless runs) go back at once.
+ */
+public class FramePool {
+    /** One off-heap frame; {@link #pixels()} is written by the decoder while it holds the only reference. */
+    public final class Frame {
+        private final int capacityWidth, capacityHeight;
+        private final ByteBuffer buffer;
+        private final IntBuffer pixels;
+        private final PixelBuffer<IntBuffer> pixelBuffer;
+        private final WritableImage image;
+        private int refs;
+        private int width, height;
+        private Rectangle2D viewport;
+        private boolean dirty;
+        private boolean shown; // attached to a view since the last fill: may still be read by the renderer
+        private long reusableAt; // pulse from which a cooling frame may be refilled
+
+        private Frame(int width, int height) {
+            capacityWidth = width;
+            capacityHeight = height;
+            buffer = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder());
+            pixels = buffer.asIntBuffer();
+            pixelBuffer = new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+            image = new WritableImage(pixelBuffer);
+        }
+
+        /** Premultiplied ARGB, row stride {@link #stride()}. */
+        public IntBuffer pixels() { return pixels; }
+
+        public int stride() { return capacityWidth; }
+
+        public Image image() { return image; }
+
+        /** Size of the slide held in the frame. */
+        public int width() { return width; }
+
+        public int height() { return height; }
+
+        /** Marks the frame as holding a new {@code width x height} slide; call after the pixels are written. */
+        public void filled(int width, int height) {
+            synchronized (FramePool.this) {
+                this.width = width;
+                this.height = height;
+                viewport = new Rectangle2D(0, 0, width, height);
+                dirty = true;
+            }
+        }
+
+        public void retain() {
+            synchronized (FramePool.this) { refs++; }
+        }
+
+        public void release() {
+            synchronized (FramePool.this) {
+                if (refs <= 0) return;
+                if (--refs == 0) { if (shown) cool(this); else recycle(this); }
+            }
+        }
+
+        private boolean fits(int w, int h) { return capacityWidth >= w && capacityHeight >= h; }
+
+        private long bytes() { return (long) capacityWidth * capacityHeight * 4; }
+    }
+
+    private final int maxFrames;
+    private final List<Frame> free = new ArrayList<>();
+    private final List<Frame> cooling = new ArrayList<>();
+    private final Map<Image, Frame> byImage = new IdentityHashMap<>();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+    private int frameWidth, frameHeight;
+    private long bytes;
+    private long pulses; // counted only while frames cool
+    private AnimationTimer pulseCounter; // created on the FX thread when a shown frame first cools
+    private boolean counting;
+
+    /** {@code maxFrames}: how many frames may exist at once; sized to what the slideshow holds (look-ahead, views). */
+    public FramePool(int maxFrames) {
+        this.maxFrames = Math.max(1, maxFrames);
+    }
+
+    /**
+     * Sets the frame size (the decode bounds). Free frames smaller than that are dropped, so the pool follows the
+     * display up; frames in use are dropped when they come back.
+     */
+    public synchronized void setFrameSize(int width, int height) {
+        frameWidth = Math.max(frameWidth, width);
+        frameHeight = Math.max(frameHeight, height);
+        free.removeIf(f -> !f.fits(frameWidth, frameHeight) && drop(f));
+    }
+
+    /**
+     * A frame that can hold {@code width x height} pixels, with one reference; null when the pool is exhausted or
+     * the direct memory limit is reached. Any thread.
+     */
+    public synchronized Frame acquire(int width, int height) {
+        for (int i = free.size() - 1; i >= 0; i--) {
+            Frame f = free.get(i);
+            if (!f.fits(width, height)) continue;
+            free.remove(i);
+            f.refs = 1;
+            reuses.increment();
+            return f;
+        }
+        if (byImage.size() >= maxFrames && !free.isEmpty()) drop(free.remove(0)); // too small: make room for a bigger one
+        if (byImage.size() >= maxFrames) { misses.increment(); return null; }
+        Frame f;
+        try {
+            f = new Frame(Math.max(width, frameWidth), Math.max(height, frameHeight));
+        } catch (OutOfMemoryError e) { // direct memory limit (-XX:MaxDirectMemorySize)
+            misses.increment();
+            return null;
+        }
+        byImage.put(f.image, f);
+        bytes += f.bytes();
+        f.refs = 1;
+        return f;
+    }
+
+    /** The frame behind {@code image}, or null for ordinary images. */
+    public synchronized Frame frameOf(Image image) { return image == null ? null : byImage.get(image); }
+
+    /** The part of {@code image} that holds its slide; null (the whole image) for ordinary images. */
+    public synchronized Rectangle2D viewport(Image image) {
+        Frame f = frameOf(image);
+        return f == null ? null : f.viewport;
+    }
+
+    /**
+     * Takes a reference for a view that is about to show {@code image}, and tells the renderer the frame was
+     * refilled since it last drew it. FX thread; ignores ordinary images.
+     */
+    public void attach(Image image) {
+        Frame f;
+        boolean refilled;
+        synchronized (this) {
+            f = byImage.get(image);
+            if (f == null) return;
+            f.refs++;
+            f.shown = true;
+            refilled = f.dirty;
+            f.dirty = false;
+        }
+        if (refilled) f.pixelBuffer.updateBuffer(b -> null); // whole frame: the old texture is stale
+    }
+
+    /** Drops a view's reference to {@code image}. Any thread; ignores ordinary images. */
+    public void detach(Image image) {
+        Frame f = frameOf(image);
+        if (f != null) f.release();
+    }
+
+    /** Direct memory held by all frames. */
+    public synchronized long bytes() { return bytes; }
+
+    public synchronized int frames() { return byImage.size(); }
+
+    /** Slides decoded into a recycled frame. */
+    public long reuses() { return reuses.sum(); }
+
+    /** Slides that found no frame and were decoded to the heap instead. */
+    public long misses() { return misses.sum(); }
+
+    private void recycle(Frame f) {
+        f.shown = false;
+        if (f.fits(frameWidth, frameHeight)) free.add(f);
+        else drop(f);
+    }
+
+    private void cool(Frame f) {
+        f.reusableAt = pulses + 2;
+        cooling.add(f);
+        if (counting) return;
+        counting = true;
+        Platform.runLater(this::startCounting);
+    }
+
+    private void startCounting() {
+        if (pulseCounter == null) pulseCounter = new AnimationTimer() { @Override public void handle(long now) { pulse(); } };
+        pulseCounter.start();
+    }
+
+    // FX thread, once per pulse while frames cool.
+    private synchronized void pulse() {
+        pulses++;
+        cooling.removeIf(f -> {
+            if (f.refs > 0) return true; // taken up again while cooling: cools again on its next release
+            if (pulses < f.reusableAt) return false;
+            recycle(f);
+            return true;
+        });
+        if (cooling.isEmpty()) { counting = false; pulseCounter.stop(); }
+    }
+
+    // The buffer is freed by its cleaner once the image is unreachable.
+    private boolean drop(Frame f) {
+        byImage.remove(f.image);
+        bytes -= f.bytes();
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.spatiosoft.glidewall;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Cached newest-first listing of the images directly inside the upload folder, for the web gallery.
+ * <p>
+ * The folder is only re-listed after an upload ({@link #invalidate()}), when the directory's mtime changed (files
+ * added, removed or renamed by something else), or when the listing is older than {@code maxAgeMillis} (catches
+ * in-place edits, which do not touch the directory).
+ */
+public class GalleryListing {
+    /** One image; {@link #version()} changes whenever the file does and is used for cache-busting URLs and ETags. */
+    public record Entry(String name, long mtime, long size) {
+        public String version() { return Long.toHexString(mtime) + "-" + Long.toHexString(size); }
+    }
+
+    /** An immutable listing plus a content hash that identifies it across restarts. */
+    public record Snapshot(List<Entry> entries, String hash) {}
+
+    private final Path folder;
+    private final Set<String> extensions;
+    private final long maxAgeMillis;
+    private Snapshot current;
+    private long listedAt;
+    private long dirMtime;
+    private boolean stale = true;
+
+    public GalleryListing(Path folder, Set<String> extensions, long maxAgeMillis) {
+        this.folder = folder;
+        this.extensions = extensions;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public synchronized Snapshot snapshot() throws IOException {
+        long now = System.currentTimeMillis();
+        long mtime = Files.getLastModifiedTime(folder).toMillis();
+        if (stale || current == null || mtime != dirMtime || now - listedAt > maxAgeMillis) {
+            stale = false;
+            dirMtime = mtime;
+            listedAt = now;
+            current = list();
+        }
+        return current;
+    }
+
+    public synchronized void invalidate() { stale = true; }
+
+    private Snapshot list() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(folder)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                if (dot < 0 || !extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) continue;
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    if (attrs.isRegularFile()) entries.add(new Entry(name, attrs.lastModifiedTime().toMillis(), attrs.size()));
+                } catch (IOException ignored) {}
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::mtime).reversed().thenComparing(Entry::name));
+        long h = 1125899906842597L;
+        for (Entry e : entries) h = 31 * (31 * (31 * h + e.name.hashCode()) + e.mtime) + e.size;
+        return new Snapshot(List.copyOf(entries), Long.toHexString(h));
+    }
+}
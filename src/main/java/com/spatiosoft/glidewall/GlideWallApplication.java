@@ -7,12 +7,18 @@ import javafx.stage.Stage;
 import javafx.scene.image.Image;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 public class GlideWallApplication extends Application {
     private SlideshowController controller;
 
     @Override
     public void start(Stage stage) throws IOException {
+        // --wall: one full-screen window per screen, all driven by this instance (see SlideshowController#startWall)
+        boolean wall = getParameters().getRaw().contains("--wall") || Boolean.getBoolean("glidewall.wall");
+        if (wall) System.setProperty("glidewall.wall", "true");
         FXMLLoader fxmlLoader = new FXMLLoader(GlideWallApplication.class.getResource("slideshow-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 800, 600);
         var css = GlideWallApplication.class.getResource("slideshow.css");
@@ -29,6 +35,11 @@ public class GlideWallApplication extends Application {
         stage.setScene(scene);
         stage.show();
         controller = fxmlLoader.getController();
+        if (wall) controller.startWall(stage);
+        // --folder <dir>: start on that folder (e.g. an export directory on a signage player)
+        List<String> raw = getParameters().getRaw();
+        int folderArg = raw.indexOf("--folder");
+        if (folderArg >= 0 && folderArg + 1 < raw.size()) controller.openFolder(Path.of(raw.get(folderArg + 1)));
     }
 
     @Override
@@ -40,6 +51,13 @@ public class GlideWallApplication extends Application {
     }
 
     public static void main(String[] args) {
-        launch();
+        if (Arrays.asList(args).contains("--export")) {
+            // headless: no JavaFX toolkit and no display needed
+            System.setProperty("java.awt.headless", "true");
+            System.exit(RenditionExporter.run(args, System.out));
+        }
+        // load generator: uploads and file churn against a headless engine (no window, but the toolkit decodes)
+        if (Arrays.asList(args).contains("--soak")) System.exit(LoadGenerator.run(args, System.out));
+        launch(args);
     }
 }
@@ -0,0 +1,264 @@
+package com.spatiosoft.glidewall;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Runtime instrumentation for the hot paths: library rescans, watcher throughput, decode latency, slide
+ * deadline-to-frame latency, transition smoothness, cache efficiency and image memory.
+ * <p>
+ * Counters live here or in the component that owns the hot path (decoder, prefetcher, batcher, thumbnail cache)
+ * and are only read when a snapshot is taken, so recording stays a few atomic adds. Snapshots are exposed through
+ * JMX, the Prometheus text format ({@link #toPrometheus()}) and the fullscreen overlay ({@link #overlayText()}).
+ */
+public class GlideWallMetrics implements GlideWallMetricsMXBean {
+    /** Slides whose first frame came later than this after their deadline count as late. */
+    public static final long LATE_SLIDE_MILLIS = Long.getLong("glidewall.metrics.lateSlideMillis", 250);
+    /** Budget from process start to the first slide on screen; reported next to the measured value. */
+    public static final long STARTUP_TARGET_MILLIS = Long.getLong("glidewall.startup.targetMillis", 3000);
+
+    private final ThumbnailCache thumbs;
+    private final SlidePrefetcher prefetcher;
+    private final ImageValidator validator;
+    private final IntSupplier imageCount;
+
+    private final LatencyStats rescans = new LatencyStats();
+    private final LatencyStats indexUpdates = new LatencyStats();
+    private final LatencyStats slideLatency = new LatencyStats();
+    private final LongAdder lateSlides = new LongAdder();
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder lateTransitions = new LongAdder();
+    private final LongAdder droppedTransitions = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LatencyStats frameTimes = new LatencyStats(8, 12, 17, 20, 25, 34, 50, 100, 250);
+    private volatile long lastRescanFiles;
+
+    private volatile ImageIndex index;
+    private volatile WatchEventBatcher batcher;
+    private volatile FolderWatcher watcher;
+    private long retiredEvents;
+    private long retiredBatches;
+    private long retiredPollChecks;
+    private long retiredWatchFailures;
+    private volatile long currentImageBytes;
+    private volatile long timeToFirstImageMillis = -1;
+
+    private long overlayAt = -1;
+    private long overlayEvents;
+
+    public GlideWallMetrics(ThumbnailCache thumbs, SlidePrefetcher prefetcher, ImageValidator validator, IntSupplier imageCount) {
+        this.thumbs = thumbs;
+        this.prefetcher = prefetcher;
+        this.validator = validator;
+        this.imageCount = imageCount;
+    }
+
+    /** Registers the MXBean with the platform MBean server; failures (e.g. a second instance) are ignored. */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("com.spatiosoft.glidewall:type=Metrics"));
+        } catch (Exception ignored) {}
+    }
+
+    public void unregisterMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName("com.spatiosoft.glidewall:type=Metrics"));
+        } catch (Exception ignored) {}
+    }
+
+    /** Points the index/watcher gauges at the current folder; watcher counters keep accumulating across folders. */
+    public synchronized void watch(ImageIndex index, WatchEventBatcher batcher, FolderWatcher watcher) {
+        WatchEventBatcher old = this.batcher;
+        if (old != null && old != batcher) { retiredEvents += old.eventCount(); retiredBatches += old.batchCount(); }
+        FolderWatcher oldWatcher = this.watcher;
+        if (oldWatcher != null && oldWatcher != watcher) { retiredPollChecks += oldWatcher.pollCount(); retiredWatchFailures += oldWatcher.coverage().failures(); }
+        this.index = index;
+        this.batcher = batcher;
+        this.watcher = watcher;
+    }
+
+    public void rescanFinished(long startNanos, int files) {
+        rescans.recordSince(startNanos);
+        lastRescanFiles = files;
+    }
+
+    public void indexUpdated(long startNanos) { indexUpdates.recordSince(startNanos); }
+
+    /** The first frame of a slide was laid out {@code nanos} after its deadline. */
+    public void slideShown(long nanos) {
+        slideLatency.record(nanos);
+        if (nanos > LATE_SLIDE_MILLIS * 1_000_000) lateSlides.increment();
+    }
+
+    /** A transition finished; {@code dropped} frames were missed (pulse gaps beyond one frame interval). */
+    public void transitionFinished(long dropped) {
+        transitions.increment();
+        if (dropped > 0) { lateTransitions.increment(); droppedFrames.add(dropped); }
+    }
+
+    /** Time between two pulses while a transition was animating. */
+    public void transitionFrame(long nanos) { frameTimes.record(nanos); }
+
+    /** A transition was cut short because the next slide arrived before it finished. */
+    public void transitionDropped() { droppedTransitions.increment(); }
+
+    /**
+     * Records the first slide on screen, measured from process start (JVM boot included); returns that time in ms
+     * the first time, -1 afterwards.
+     */
+    public synchronized long firstImageShown() {
+        if (timeToFirstImageMillis >= 0) return -1;
+        long now = System.currentTimeMillis();
+        timeToFirstImageMillis = ProcessHandle.current().info().startInstant().map(start -> now - start.toEpochMilli()).orElse(0L);
+        return timeToFirstImageMillis;
+    }
+
+    public void currentImage(double width, double height) { currentImageBytes = (long) width * (long) height * 4; }
+
+    @Override public int getImageCount() { return imageCount.getAsInt(); }
+    @Override public int getDirectoryCount() { ImageIndex idx = index; return idx == null ? 0 : idx.directoryCount(); }
+    @Override public int getQuarantinedCount() { return validator.quarantinedCount(); }
+
+    @Override public long getRescanCount() { return rescans.count(); }
+    @Override public double getLastRescanMillis() { return rescans.lastMillis(); }
+    @Override public double getMaxRescanMillis() { return rescans.maxMillis(); }
+    @Override public long getLastRescanFiles() { return lastRescanFiles; }
+
+    @Override public synchronized long getWatchEvents() { WatchEventBatcher b = batcher; return retiredEvents + (b == null ? 0 : b.eventCount()); }
+    @Override public synchronized long getWatchBatches() { WatchEventBatcher b = batcher; return retiredBatches + (b == null ? 0 : b.batchCount()); }
+    @Override public int getWatchQueueDepth() { WatchEventBatcher b = batcher; return b == null ? 0 : b.pendingCount(); }
+    @Override public int getWatchedDirectories() { FolderWatcher w = watcher; return w == null ? 0 : w.coverage().watched(); }
+    @Override public int getPolledDirectories() { FolderWatcher w = watcher; return w == null ? 0 : w.coverage().polled(); }
+    @Override public double getMeanIndexUpdateMillis() { return indexUpdates.meanMillis(); }
+
+    @Override public long getDecodeCount() { return prefetcher.decoder().latency().count(); }
+    @Override public long getDecodeFailures() { return prefetcher.decoder().failures(); }
+    @Override public double getMeanDecodeMillis() { return prefetcher.decoder().latency().meanMillis(); }
+    @Override public double getMaxDecodeMillis() { return prefetcher.decoder().latency().maxMillis(); }
+    @Override public double getPrefetchHitRatio() { return ratio(prefetcher.hits(), prefetcher.hits() + prefetcher.misses()); }
+    @Override public long getFramePoolBytes() { FramePool f = prefetcher.decoder().frames(); return f == null ? 0 : f.bytes(); }
+    @Override public long getFrameReuses() { FramePool f = prefetcher.decoder().frames(); return f == null ? 0 : f.reuses(); }
+    @Override public long getFrameMisses() { FramePool f = prefetcher.decoder().frames(); return f == null ? 0 : f.misses(); }
+
+    @Override public long getSlidesShown() { return slideLatency.count(); }
+    @Override public double getMeanSlideLatencyMillis() { return slideLatency.meanMillis(); }
+    @Override public double getMaxSlideLatencyMillis() { return slideLatency.maxMillis(); }
+    @Override public long getLateSlides() { return lateSlides.sum(); }
+    @Override public long getTransitions() { return transitions.sum(); }
+    @Override public double getMeanTransitionFrameMillis() { return frameTimes.meanMillis(); }
+    @Override public double getMaxTransitionFrameMillis() { return frameTimes.maxMillis(); }
+    @Override public long getLateTransitions() { return lateTransitions.sum(); }
+    @Override public long getDroppedTransitions() { return droppedTransitions.sum(); }
+    @Override public long getDroppedFrames() { return droppedFrames.sum(); }
+
+    @Override public double getThumbnailHitRatio() { return thumbs.stats().hitRatio(); }
+    @Override public long getThumbnailCacheBytes() { return thumbs.stats().bytes(); }
+    @Override public long getImageBytes() { return thumbs.stats().bytes() + prefetcher.decodedBytes() + currentImageBytes; }
+    @Override public long getTimeToFirstImageMillis() { return timeToFirstImageMillis; }
+    @Override public long getHeapUsedBytes() { return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(); }
+
+    /** Snapshot in the Prometheus text exposition format (version 0.0.4). */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        gauge(sb, "glidewall_images", "Images in the rotation", getImageCount());
+        gauge(sb, "glidewall_directories", "Directories in the library index", getDirectoryCount());
+        gauge(sb, "glidewall_quarantined_files", "Files skipped because they cannot be displayed", getQuarantinedCount());
+        histogram(sb, "glidewall_rescan_seconds", "Duration of full library rescans", rescans);
+        gauge(sb, "glidewall_rescan_last_files", "Files found by the last full rescan", lastRescanFiles);
+        counter(sb, "glidewall_watch_events_total", "Raw file watcher events received", getWatchEvents());
+        counter(sb, "glidewall_watch_batches_total", "Coalesced watcher batches applied to the index", getWatchBatches());
+        gauge(sb, "glidewall_watch_queue_depth", "Watcher events waiting for their batch", getWatchQueueDepth());
+        FolderWatcher w = watcher;
+        FolderWatcher.Coverage c = w == null ? new FolderWatcher.Coverage(0, 0, 0) : w.coverage();
+        gauge(sb, "glidewall_watch_directories", "Directories with a filesystem watch registration", c.watched());
+        gauge(sb, "glidewall_poll_directories", "Directories polled because no watch could be registered", c.polled());
+        long polls, refused;
+        synchronized (this) { polls = retiredPollChecks + (w == null ? 0 : w.pollCount()); refused = retiredWatchFailures + c.failures(); }
+        counter(sb, "glidewall_watch_register_failures_total", "Watch registrations refused by the OS", refused);
+        counter(sb, "glidewall_poll_checks_total", "Directory mtime checks by the poller", polls);
+        histogram(sb, "glidewall_index_update_seconds", "Time to apply one watcher batch to the index", indexUpdates);
+        histogram(sb, "glidewall_decode_seconds", "Slide decode latency per image", prefetcher.decoder().latency());
+        counter(sb, "glidewall_decode_failures_total", "Slides that could not be decoded", getDecodeFailures());
+        counter(sb, "glidewall_prefetch_hits_total", "Slides served from a look-ahead decode", prefetcher.hits());
+        counter(sb, "glidewall_prefetch_misses_total", "Slides decoded on demand", prefetcher.misses());
+        gauge(sb, "glidewall_frame_pool_bytes", "Direct memory held by the slide frame pool", getFramePoolBytes());
+        counter(sb, "glidewall_frame_reuses_total", "Slides decoded into a recycled off-heap frame", getFrameReuses());
+        counter(sb, "glidewall_frame_misses_total", "Slides decoded to the heap because no frame was free", getFrameMisses());
+        histogram(sb, "glidewall_slide_latency_seconds", "Time from slide deadline to its first laid-out frame", slideLatency);
+        counter(sb, "glidewall_slides_late_total", "Slides shown more than " + LATE_SLIDE_MILLIS + " ms after their deadline", getLateSlides());
+        counter(sb, "glidewall_transitions_total", "Slide transitions played", getTransitions());
+        counter(sb, "glidewall_transitions_late_total", "Transitions that missed at least one frame", getLateTransitions());
+        counter(sb, "glidewall_transitions_dropped_total", "Transitions cut short by the next slide", getDroppedTransitions());
+        counter(sb, "glidewall_transition_dropped_frames_total", "Frames missed during transitions", getDroppedFrames());
+        histogram(sb, "glidewall_transition_frame_seconds", "Time between pulses while a transition animates", frameTimes);
+        ThumbnailCache.Stats t = thumbs.stats();
+        counter(sb, "glidewall_thumbnail_hits_total", "Thumbnail memory cache hits", t.hits());
+        counter(sb, "glidewall_thumbnail_disk_hits_total", "Thumbnail disk cache hits", t.diskHits());
+        counter(sb, "glidewall_thumbnail_misses_total", "Thumbnails decoded from the original", t.misses());
+        counter(sb, "glidewall_thumbnail_evictions_total", "Thumbnails evicted from memory", t.evictions());
+        counter(sb, "glidewall_thumbnail_cancelled_total", "Thumbnail loads cancelled because their cell scrolled away", t.cancelled());
+        gauge(sb, "glidewall_thumbnail_cache_bytes", "Estimated bytes held by the thumbnail memory cache", t.bytes());
+        gauge(sb, "glidewall_image_bytes", "Estimated pixel bytes held by thumbnails, prefetched and current slides", getImageBytes());
+        gauge(sb, "glidewall_heap_used_bytes", "JVM heap in use", getHeapUsedBytes());
+        if (timeToFirstImageMillis >= 0) {
+            sb.append("# HELP glidewall_startup_first_image_seconds Time from process start to the first slide on screen\n");
+            sb.append("# TYPE glidewall_startup_first_image_seconds gauge\n");
+            sb.append("glidewall_startup_first_image_seconds ").append(String.format(Locale.ROOT, "%.3f", timeToFirstImageMillis / 1000.0)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Compact multi-line summary for the on-screen overlay; rates are per second since the previous call. */
+    public synchronized String overlayText() {
+        long now = System.nanoTime();
+        long events = getWatchEvents();
+        double rate = overlayAt < 0 ? 0 : (events - overlayEvents) / ((now - overlayAt) / 1e9);
+        overlayAt = now;
+        overlayEvents = events;
+        return String.format(Locale.ROOT,
+                "images %d  dirs %d (watched %d, polled %d)  skipped %d%n"
+                        + "rescan %.0f ms (%d files)  watch %.1f ev/s  queue %d%n"
+                        + "decode avg %.0f ms  max %.0f ms  prefetch hit %.0f%%%n"
+                        + "slide latency last %.0f ms  avg %.0f ms  late %d/%d%n"
+                        + "transitions %d  janky %d  cut %d  dropped frames %d  frame avg %.1f ms  max %.0f ms%n"
+                        + "thumbs hit %.0f%%  images %d MB  heap %d MB  first image %d ms",
+                getImageCount(), getDirectoryCount(), getWatchedDirectories(), getPolledDirectories(), getQuarantinedCount(),
+                getLastRescanMillis(), lastRescanFiles, rate, getWatchQueueDepth(),
+                getMeanDecodeMillis(), getMaxDecodeMillis(), getPrefetchHitRatio() * 100,
+                slideLatency.lastMillis(), slideLatency.meanMillis(), getLateSlides(), getSlidesShown(),
+                getTransitions(), getLateTransitions(), getDroppedTransitions(), getDroppedFrames(), frameTimes.meanMillis(), frameTimes.maxMillis(),
+                getThumbnailHitRatio() * 100, getImageBytes() >> 20, getHeapUsedBytes() >> 20, timeToFirstImageMillis);
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0 : (double) part / total;
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, String name, String help, LatencyStats stats) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        long[] buckets = stats.cumulativeBuckets();
+        double[] bounds = stats.boundsMillis();
+        for (int i = 0; i < bounds.length; i++) {
+            sb.append(name).append("_bucket{le=\"").append(bounds[i] / 1000).append("\"} ").append(buckets[i]).append('\n');
+        }
+        sb.append(name).append("_bucket{le=\"+Inf\"} ").append(buckets[buckets.length - 1]).append('\n');
+        sb.append(name).append("_sum ").append(String.format(Locale.ROOT, "%.6f", stats.sumMillis() / 1000)).append('\n');
+        sb.append(name).append("_count ").append(buckets[buckets.length - 1]).append('\n');
+    }
+}
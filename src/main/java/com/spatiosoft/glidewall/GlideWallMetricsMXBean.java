@@ -0,0 +1,46 @@
+package com.spatiosoft.glidewall;
+
+/** JMX view of {@link GlideWallMetrics}, registered as {@code com.spatiosoft.glidewall:type=Metrics}. */
+public interface GlideWallMetricsMXBean {
+    int getImageCount();
+    int getDirectoryCount();
+    int getQuarantinedCount();
+
+    long getRescanCount();
+    double getLastRescanMillis();
+    double getMaxRescanMillis();
+    long getLastRescanFiles();
+
+    long getWatchEvents();
+    long getWatchBatches();
+    int getWatchQueueDepth();
+    int getWatchedDirectories();
+    int getPolledDirectories();
+    double getMeanIndexUpdateMillis();
+
+    long getDecodeCount();
+    long getDecodeFailures();
+    double getMeanDecodeMillis();
+    double getMaxDecodeMillis();
+    double getPrefetchHitRatio();
+    long getFramePoolBytes();
+    long getFrameReuses();
+    long getFrameMisses();
+
+    long getSlidesShown();
+    double getMeanSlideLatencyMillis();
+    double getMaxSlideLatencyMillis();
+    long getLateSlides();
+    long getTransitions();
+    double getMeanTransitionFrameMillis();
+    double getMaxTransitionFrameMillis();
+    long getLateTransitions();
+    long getDroppedTransitions();
+    long getDroppedFrames();
+
+    double getThumbnailHitRatio();
+    long getThumbnailCacheBytes();
+    long getImageBytes();
+    long getHeapUsedBytes();
+    long getTimeToFirstImageMillis();
+}
@@ -0,0 +1,306 @@
+package com.spatiosoft.glidewall;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental index of the image files below a root directory.
+ * <p>
+ * The tree is kept per directory so watcher deltas (create / delete / modify) are applied in O(1), and an
+ * overflowed or invalidated WatchKey only costs a listing of that one directory. {@link #fullScan()} walks
+ * the whole tree once and is meant for the initial load and the low-frequency consistency audit.
+ * Every mutating call returns the {@link IndexDiff} it caused. Hidden directories (name starting with a dot, e.g.
+ * the thumbnail tree of an export) are not indexed.
+ */
+public class ImageIndex {
+    private static final class DirNode {
+        final Set<Path> files = new HashSet<>();
+        final Set<Path> subdirs = new HashSet<>();
+        final Map<Path, Version> versions = new HashMap<>(); // files indexed through fileCreated(), as they were then
+    }
+
+    private record Version(long size, long mtime) {
+        static Version of(Path file) {
+            try {
+                BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+                return new Version(a.size(), a.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Path root;
+    private final Map<Path, DirNode> dirs = new HashMap<>();
+    private int size;
+    // Paths changed by other calls while a fullScan() walk runs; the walk's view of them is stale. Null when idle.
+    private Set<Path> touched;
+    private int scans;
+
+    public ImageIndex(Path root) {
+        this.root = root;
+    }
+
+    public Path root() { return root; }
+
+    public synchronized int size() { return size; }
+
+    public synchronized int directoryCount() { return dirs.size(); }
+
+    public synchronized boolean contains(Path file) {
+        DirNode node = dirs.get(file.getParent());
+        return node != null && node.files.contains(file);
+    }
+
+    public synchronized List<Path> snapshot() {
+        List<Path> all = new ArrayList<>(size);
+        for (DirNode node : dirs.values()) all.addAll(node.files);
+        return all;
+    }
+
+    /**
+     * Pre-populates the index with files known from a previous session (e.g. the metadata catalog) without
+     * touching the disk; a later {@link #fullScan()} reconciles them.
+     */
+    public synchronized IndexDiff seed(Collection<Path> files) {
+        List<Path> added = new ArrayList<>();
+        for (Path f : files) {
+            if (!f.startsWith(root) || f.equals(root) || !isImageFile(f)) continue;
+            if (ensureDir(f.getParent()).files.add(f)) { added.add(f); touch(f); }
+        }
+        size += added.size();
+        return new IndexDiff(added, List.of(), List.of());
+    }
+
+    private DirNode ensureDir(Path dir) {
+        DirNode node = dirs.get(dir);
+        if (node != null) return node;
+        node = new DirNode();
+        dirs.put(dir, node);
+        if (!dir.equals(root)) ensureDir(dir.getParent()).subdirs.add(dir);
+        return node;
+    }
+
+    /**
+     * Walks the whole tree and reconciles the index with it. The walk runs unlocked, so watcher deltas applied
+     * meanwhile win: files and directories they touched keep their live state instead of the walk's.
+     */
+    public IndexDiff fullScan() throws IOException {
+        synchronized (this) { if (scans++ == 0) touched = new HashSet<>(); }
+        try {
+            Map<Path, DirNode> scanned = walk(root);
+            synchronized (this) { return reconcile(scanned); }
+        } finally {
+            synchronized (this) { if (--scans == 0) touched = null; }
+        }
+    }
+
+    private IndexDiff reconcile(Map<Path, DirNode> scanned) {
+        List<Path> added = new ArrayList<>();
+        List<Path> removed = new ArrayList<>();
+        for (Path dir : new ArrayList<>(dirs.keySet())) {
+            if (scanned.containsKey(dir) || !dirs.containsKey(dir) || isTouched(dir)) continue;
+            removeTree(dir, removed);
+            DirNode parent = dirs.get(dir.getParent());
+            if (parent != null) parent.subdirs.remove(dir);
+        }
+        for (Map.Entry<Path, DirNode> e : scanned.entrySet()) {
+            if (isTouched(e.getKey())) continue;
+            DirNode node = ensureDir(e.getKey());
+            Set<Path> found = e.getValue().files;
+            for (Path f : found) if (!touched.contains(f) && node.files.add(f)) added.add(f);
+            for (Iterator<Path> it = node.files.iterator(); it.hasNext(); ) {
+                Path f = it.next();
+                if (!found.contains(f) && !touched.contains(f)) { it.remove(); node.versions.remove(f); removed.add(f); size--; }
+            }
+        }
+        size += added.size();
+        return new IndexDiff(added, removed, List.of());
+    }
+
+    private void touch(Path p) { if (touched != null) touched.add(p); }
+
+    // A path is touched if it or one of its directories was changed during the walk.
+    private boolean isTouched(Path p) {
+        if (touched.isEmpty()) return false;
+        for (Path q = p; q != null && q.startsWith(root); q = q.getParent()) if (touched.contains(q)) return true;
+        return false;
+    }
+
+    /**
+     * Adds {@code file}; for a file already indexed this way it is a modification, or nothing at all if size and
+     * mtime are unchanged (e.g. the watcher reporting an upload that was indexed directly).
+     */
+    public IndexDiff fileCreated(Path file) {
+        if (!isImageFile(file)) return IndexDiff.EMPTY;
+        Version version = Version.of(file);
+        if (version == null) return IndexDiff.EMPTY; // already gone again: the delete event follows
+        synchronized (this) {
+            DirNode node = dirs.get(file.getParent());
+            if (node == null) return IndexDiff.EMPTY; // parent not (yet) known: its directoryCreated walk picks it up
+            boolean known = !node.files.add(file);
+            Version before = node.versions.put(file, version);
+            if (known) return version.equals(before) ? IndexDiff.EMPTY : new IndexDiff(List.of(), List.of(), List.of(file));
+            touch(file);
+            size++;
+            return new IndexDiff(List.of(file), List.of(), List.of());
+        }
+    }
+
+    public IndexDiff fileModified(Path file) {
+        if (!isImageFile(file)) return IndexDiff.EMPTY;
+        if (!contains(file)) return fileCreated(file); // the create event was lost (e.g. overflow)
+        synchronized (this) {
+            DirNode node = dirs.get(file.getParent());
+            if (node != null) node.versions.remove(file); // a later create is a change again
+        }
+        return new IndexDiff(List.of(), List.of(), List.of(file));
+    }
+
+    /** Removes a file or, if the path was a known directory, its whole subtree. */
+    public synchronized IndexDiff pathDeleted(Path path) {
+        List<Path> removed = new ArrayList<>();
+        touch(path);
+        if (dirs.containsKey(path)) {
+            removeTree(path, removed);
+            DirNode parent = dirs.get(path.getParent());
+            if (parent != null) parent.subdirs.remove(path);
+        } else {
+            DirNode parent = dirs.get(path.getParent());
+            if (parent != null && parent.files.remove(path)) { parent.versions.remove(path); removed.add(path); size--; }
+        }
+        return removed.isEmpty() ? IndexDiff.EMPTY : new IndexDiff(List.of(), removed, List.of());
+    }
+
+    /** Indexes a newly appeared directory and everything below it. */
+    public IndexDiff directoryCreated(Path dir) throws IOException {
+        if (!dir.equals(root) && isHiddenDirectory(dir)) return IndexDiff.EMPTY;
+        Map<Path, DirNode> scanned = walk(dir);
+        synchronized (this) {
+            DirNode parent = dirs.get(dir.getParent());
+            if (parent == null && !dir.equals(root)) return IndexDiff.EMPTY;
+            if (parent != null) parent.subdirs.add(dir);
+            touch(dir);
+            List<Path> removed = new ArrayList<>();
+            if (dirs.containsKey(dir)) removeTree(dir, removed);
+            List<Path> added = new ArrayList<>();
+            for (Map.Entry<Path, DirNode> e : scanned.entrySet()) {
+                dirs.put(e.getKey(), e.getValue());
+                added.addAll(e.getValue().files);
+            }
+            size += added.size();
+            return new IndexDiff(List.of(), removed, List.of()).merge(new IndexDiff(added, List.of(), List.of()));
+        }
+    }
+
+    /**
+     * Re-lists a single directory (non-recursively) after its WatchKey overflowed or became invalid.
+     * Subdirectories that appeared are walked, subdirectories that vanished are dropped with their subtree.
+     */
+    public IndexDiff rescanDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return pathDeleted(dir);
+        Set<Path> files = new HashSet<>();
+        Set<Path> subdirs = new HashSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path p : entries) {
+                if (Files.isDirectory(p)) { if (!isHiddenDirectory(p)) subdirs.add(p); }
+                else if (isImageFile(p) && Files.isRegularFile(p)) files.add(p);
+            }
+        }
+        IndexDiff diff;
+        Set<Path> newDirs = new HashSet<>();
+        synchronized (this) {
+            DirNode node = dirs.get(dir);
+            if (node != null) {
+                touch(dir);
+                List<Path> added = new ArrayList<>();
+                List<Path> removed = new ArrayList<>();
+                for (Path f : files) if (!node.files.contains(f)) added.add(f);
+                for (Path f : node.files) if (!files.contains(f)) removed.add(f);
+                node.files.clear();
+                node.files.addAll(files);
+                node.versions.keySet().retainAll(files);
+                size += added.size() - removed.size();
+                for (Path d : new ArrayList<>(node.subdirs)) {
+                    if (!subdirs.contains(d)) { removeTree(d, removed); node.subdirs.remove(d); }
+                }
+                for (Path d : subdirs) if (!node.subdirs.contains(d)) newDirs.add(d);
+                diff = new IndexDiff(added, removed, List.of());
+            } else diff = null;
+        }
+        if (diff == null) return directoryCreated(dir);
+        if (newDirs.isEmpty()) return diff;
+        IndexDiff.Builder all = new IndexDiff.Builder().add(diff);
+        for (Path d : newDirs) all.add(directoryCreated(d));
+        return all.build();
+    }
+
+    /** Applies one coalesced watcher batch; deletions first so a replaced directory is re-walked cleanly. */
+    public IndexDiff apply(WatchEventBatcher.ChangeSet changes) {
+        IndexDiff.Builder diff = new IndexDiff.Builder();
+        for (Path p : changes.deleted()) diff.add(pathDeleted(p));
+        for (Path d : changes.createdDirs()) {
+            try { diff.add(directoryCreated(d)); } catch (IOException ignored) {}
+        }
+        for (Path d : changes.rescanDirs()) {
+            try { diff.add(rescanDirectory(d)); } catch (IOException ignored) {}
+        }
+        for (Path f : changes.created()) diff.add(fileCreated(f));
+        for (Path f : changes.modified()) diff.add(fileModified(f));
+        return diff.build();
+    }
+
+    private void removeTree(Path dir, List<Path> removed) {
+        DirNode node = dirs.remove(dir);
+        if (node == null) return;
+        removed.addAll(node.files);
+        size -= node.files.size();
+        for (Path sub : node.subdirs) removeTree(sub, removed);
+    }
+
+    private static Map<Path, DirNode> walk(Path start) throws IOException {
+        Map<Path, DirNode> result = new HashMap<>();
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(start) && isHiddenDirectory(dir)) return FileVisitResult.SKIP_SUBTREE;
+                result.put(dir, new DirNode());
+                DirNode parent = result.get(dir.getParent());
+                if (parent != null) parent.subdirs.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isImageFile(file)) result.get(file.getParent()).files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE; // unreadable entries are skipped, like the old Files.walk filter
+            }
+        });
+        return result;
+    }
+
+    public static boolean isHiddenDirectory(Path dir) {
+        Path fn = dir.getFileName();
+        return fn != null && fn.toString().startsWith(".");
+    }
+
+    public static boolean isImageFile(Path p) {
+        Path fn = p.getFileName();
+        if (fn == null) return false;
+        String name = fn.toString().toLowerCase();
+        return name.endsWith(".jpg")|| name.endsWith(".jpeg")|| name.endsWith(".png")|| name.endsWith(".gif")|| name.endsWith(".bmp")|| name.endsWith(".webp");
+    }
+}
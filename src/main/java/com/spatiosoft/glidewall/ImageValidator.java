@@ -0,0 +1,158 @@
+package com.spatiosoft.glidewall;
+
+import javax.imageio.ImageIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Checks discovered files before they enter the rotation: the content signature must be a format the renderer
+ * can decode, the header must parse, and the file must not be truncated. Rejected files are quarantined with a
+ * reason together with the size/mtime they had, and are re-checked once they change.
+ */
+public class ImageValidator {
+    public enum Format { JPEG, PNG, GIF, BMP, WEBP, HEIF, UNKNOWN }
+
+    public record Quarantined(Path file, String reason, long size, long mtime) {}
+
+    // JavaFX cannot decode WEBP; slides, thumbnails and renditions read it through ImageIO when a plugin is installed.
+    private static final boolean WEBP_DECODER = ImageIO.getImageReadersByFormatName("webp").hasNext();
+
+    private final ExecutorService pool;
+    private final Map<Path, Quarantined> quarantine = new ConcurrentHashMap<>();
+
+    public ImageValidator(int threads) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> { Thread t = new Thread(r, "image-validator"); t.setDaemon(true); t.setPriority(Thread.NORM_PRIORITY - 1); return t; });
+    }
+
+    /** Content sniffing equivalent to detect_image() in the Python uploader, plus HEIF brands. */
+    public static Format sniff(byte[] h, int len) {
+        if (len >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF) return Format.JPEG;
+        if (len >= 8 && startsWith(h, "\u0089PNG\r\n\u001a\n")) return Format.PNG;
+        if (len >= 6 && (startsWith(h, "GIF87a") || startsWith(h, "GIF89a"))) return Format.GIF;
+        if (len >= 2 && startsWith(h, "BM")) return Format.BMP;
+        if (len >= 12 && startsWith(h, "RIFF") && new String(h, 8, 4, StandardCharsets.ISO_8859_1).equals("WEBP")) return Format.WEBP;
+        if (len >= 12 && new String(h, 4, 4, StandardCharsets.ISO_8859_1).equals("ftyp")) {
+            String brand = new String(h, 8, 4, StandardCharsets.ISO_8859_1);
+            if (brand.startsWith("hei") || brand.startsWith("hev") || brand.equals("mif1") || brand.equals("msf1") || brand.equals("avif")) return Format.HEIF;
+        }
+        return Format.UNKNOWN;
+    }
+
+    /** Returns null if {@code file} will render, otherwise the reason it will not. */
+    public static String check(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return "empty file";
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(32, size));
+            while (head.hasRemaining() && ch.read(head) >= 0) {}
+            Format format = sniff(head.array(), head.position());
+            String unsupported = switch (format) {
+                case UNKNOWN -> "unrecognised content";
+                case HEIF -> "HEIC/HEIF content (not supported)";
+                case WEBP -> WEBP_DECODER ? null : "WEBP content (no WEBP decoder installed)";
+                default -> null;
+            };
+            if (unsupported != null) return unsupported;
+            ByteBuffer tail = ByteBuffer.allocate((int) Math.min(64, size));
+            ch.position(size - tail.capacity());
+            while (tail.hasRemaining() && ch.read(tail) >= 0) {}
+            if (!hasTrailer(format, tail.array())) return "truncated " + format + " data";
+        } catch (IOException e) {
+            return "unreadable: " + e.getMessage();
+        }
+        return MetadataCatalog.probeDimensions(file)[0] > 0 ? null : "corrupt header";
+    }
+
+    /**
+     * Validates {@code files} in parallel and returns the ones that will render. Files accepted by
+     * {@code knownGood} (e.g. unchanged since a previous run) are not opened.
+     */
+    public List<Path> filter(Collection<Path> files, Predicate<Path> knownGood) {
+        List<Path> ok = new ArrayList<>(files.size());
+        List<Path> toCheck = new ArrayList<>();
+        for (Path p : files) {
+            if (knownGood.test(p)) { quarantine.remove(p); ok.add(p); } else toCheck.add(p);
+        }
+        if (toCheck.isEmpty()) return ok;
+        List<Callable<String>> tasks = new ArrayList<>(toCheck.size());
+        for (Path p : toCheck) tasks.add(() -> check(p));
+        try {
+            List<Future<String>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < toCheck.size(); i++) {
+                Path p = toCheck.get(i);
+                String reason;
+                try { reason = results.get(i).get(); } catch (ExecutionException e) { reason = "validation failed: " + e.getCause(); }
+                if (reason == null) { quarantine.remove(p); ok.add(p); } else quarantine(p, reason);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ok;
+    }
+
+    public void quarantine(Path file, String reason) {
+        long size = -1, mtime = -1;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attrs.size();
+            mtime = attrs.lastModifiedTime().toMillis();
+        } catch (IOException ignored) {}
+        quarantine.put(file, new Quarantined(file, reason, size, mtime));
+    }
+
+    public boolean isQuarantined(Path file) { return quarantine.containsKey(file); }
+
+    public Quarantined get(Path file) { return quarantine.get(file); }
+
+    public int quarantinedCount() { return quarantine.size(); }
+
+    public List<Quarantined> quarantined() { return new ArrayList<>(quarantine.values()); }
+
+    public void forget(Path file) { quarantine.remove(file); }
+
+    public void clear() { quarantine.clear(); }
+
+    public void shutdown() { pool.shutdownNow(); }
+
+    private static boolean hasTrailer(Format format, byte[] tail) {
+        return switch (format) {
+            // JPEG EOI marker; some encoders pad after it, so the whole tail is searched
+            case JPEG -> indexOf(tail, (byte) 0xFF, (byte) 0xD9) >= 0;
+            case PNG -> new String(tail, StandardCharsets.ISO_8859_1).contains("IEND");
+            case GIF -> indexOf(tail, (byte) 0x3B) >= 0;
+            default -> true;
+        };
+    }
+
+    private static int indexOf(byte[] data, byte... seq) {
+        outer:
+        for (int i = 0; i <= data.length - seq.length; i++) {
+            for (int j = 0; j < seq.length; j++) if (data[i + j] != seq[j]) continue outer;
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] h, String sig) {
+        for (int i = 0; i < sig.length(); i++) if (h[i] != (byte) sig.charAt(i)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.spatiosoft.glidewall;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Change set produced by {@link ImageIndex}: image files that appeared, disappeared or were rewritten.
+ * The three lists are disjoint, so consumers can apply them in any order.
+ */
+public record IndexDiff(List<Path> added, List<Path> removed, List<Path> modified) {
+    public static final IndexDiff EMPTY = new IndexDiff(List.of(), List.of(), List.of());
+
+    public boolean isEmpty() { return added.isEmpty() && removed.isEmpty() && modified.isEmpty(); }
+
+    public int size() { return added.size() + removed.size() + modified.size(); }
+
+    /** Combines this diff with a later one, cancelling out create/delete pairs. */
+    public IndexDiff merge(IndexDiff later) {
+        if (later == null || later.isEmpty()) return this;
+        if (isEmpty()) return later;
+        return new Builder().add(this).add(later).build();
+    }
+
+    /** Merges a sequence of diffs like repeated {@link #merge} calls, in time linear in their total size. */
+    public static final class Builder {
+        private final Set<Path> added = new LinkedHashSet<>(), removed = new LinkedHashSet<>(), modified = new LinkedHashSet<>();
+
+        /** Appends a later diff. */
+        public Builder add(IndexDiff later) {
+            if (later == null) return this;
+            for (Path p : later.removed) {
+                if (!added.remove(p)) { modified.remove(p); removed.add(p); }
+            }
+            for (Path p : later.added) {
+                if (removed.remove(p)) modified.add(p); else added.add(p);
+            }
+            for (Path p : later.modified) {
+                if (!added.contains(p)) modified.add(p);
+            }
+            return this;
+        }
+
+        public IndexDiff build() {
+            if (added.isEmpty() && removed.isEmpty() && modified.isEmpty()) return EMPTY;
+            return new IndexDiff(new ArrayList<>(added), new ArrayList<>(removed), new ArrayList<>(modified));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.spatiosoft.glidewall;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency recorder: count, sum, max and a fixed millisecond histogram, cheap enough for hot paths.
+ * Buckets follow the Prometheus convention (cumulative {@code le} bounds) when exported.
+ */
+public class LatencyStats {
+    /** Default upper bucket bounds in milliseconds; the implicit last bucket is +Inf. */
+    public static final double[] BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final double[] bounds;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets;
+    private volatile long lastNanos;
+
+    public LatencyStats() { this(BOUNDS_MILLIS); }
+
+    /** Uses custom ascending bucket bounds in milliseconds, e.g. around the frame interval for frame times. */
+    public LatencyStats(double... boundsMillis) {
+        this.bounds = boundsMillis.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        lastNanos = nanos;
+        double millis = nanos / 1e6;
+        int i = 0;
+        while (i < bounds.length && millis > bounds[i]) i++;
+        buckets[i].increment();
+    }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public double[] boundsMillis() { return bounds.clone(); }
+
+    public long count() { return count.sum(); }
+    public double sumMillis() { return sumNanos.sum() / 1e6; }
+    public double maxMillis() { return maxNanos.get() / 1e6; }
+    public double lastMillis() { return lastNanos / 1e6; }
+
+    public double meanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : sumNanos.sum() / 1e6 / n;
+    }
+
+    /** Upper bound of the bucket that holds quantile {@code q} (0..1); the max when it falls in the +Inf bucket. */
+    public double quantileMillis(double q) {
+        long[] c = cumulativeBuckets();
+        long total = c[c.length - 1];
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total);
+        for (int i = 0; i < bounds.length; i++) if (c[i] >= rank) return Math.min(bounds[i], maxMillis());
+        return maxMillis();
+    }
+
+    /** Cumulative counts per bound of {@link #boundsMillis()}, followed by the total. */
+    public long[] cumulativeBuckets() {
+        long[] out = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) out[i] = running += buckets[i].sum();
+        return out;
+    }
+}
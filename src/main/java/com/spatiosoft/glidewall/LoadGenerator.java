@@ -0,0 +1,471 @@
+package com.spatiosoft.glidewall;
+
+import com.spatiosoft.glidewall.SlideDecoder.DecodedSlide;
+import javafx.application.Platform;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Soak test ({@code --soak}): floods a folder tree with uploads and file churn while a headless
+ * {@link SlideshowEngine} plays it, and reports how long new files take to reach the screen.
+ * <p>
+ * Uploads go through a real {@link UploadServer} on loopback, several clients at once. Filesystem churn creates,
+ * deletes and renames files across the tree, and writes some files in two halves with a pause (a slow copy) or never
+ * finishes them (an aborted one). Every event is a Poisson process at its configured rate. A file's arrival is the
+ * moment it is complete on disk; latency is measured from there to the index diff that puts it in rotation and to the
+ * first slide showing it (new files are shown next, so this grows when arrivals outpace the slide interval). Deleted
+ * and renamed files are timed until they leave the rotation. Report lines add heap, direct memory, process CPU and
+ * GC. Aborted files that enter the rotation and deleted files shown after they left it are counted as errors.
+ * <p>
+ * No window is opened, but decoding needs the JavaFX toolkit and therefore a display ({@code xvfb-run} on servers).
+ */
+public class LoadGenerator {
+    /** One run; rates are events per minute, {@code folder} null for a temp tree that is deleted afterwards. */
+    public record Options(Path folder, Duration duration, Duration report, int seedFiles, int folders, int maxFiles,
+                          double uploadsPerMinute, int clients, double createsPerMinute, double deletesPerMinute,
+                          double renamesPerMinute, double partialsPerMinute, int intervalSeconds, int width, int height, Path csv) {}
+
+    // Arrivals are expected in rotation within seconds; the slide bound grows with the backlog of new files.
+    private static final double[] BOUNDS_MILLIS = {250, 500, 1000, 2000, 3000, 5000, 10000, 30000, 60000, 300000};
+    private static final long PARTIAL_PAUSE_MILLIS = 3000;
+    private static final double ABANDON_RATIO = 0.25;
+    private static final long DRAIN_MILLIS = 30_000;
+    private static final int SAMPLES = 12;
+
+    private final Options options;
+    private final Path root;
+    private final List<byte[]> samples = new ArrayList<>();
+    private final List<Path> live = new ArrayList<>(); // complete files made by this run, guarded by itself
+    private final List<Path> folders = new ArrayList<>();
+    private final AtomicLong names = new AtomicLong();
+
+    private final Map<Path, Long> arrivals = new ConcurrentHashMap<>();      // complete on disk, not in rotation yet
+    private final Map<Path, Long> awaitingSlide = new ConcurrentHashMap<>(); // in rotation, not shown yet
+    private final Map<Path, Long> removals = new ConcurrentHashMap<>();      // deleted or renamed away, still in rotation
+    private final Set<Path> abandoned = ConcurrentHashMap.newKeySet();
+    private final Set<Path> gone = ConcurrentHashMap.newKeySet();
+
+    private final LatencyStats toRotation = new LatencyStats(BOUNDS_MILLIS);
+    private final LatencyStats toSlide = new LatencyStats(BOUNDS_MILLIS);
+    private final LatencyStats toRemoval = new LatencyStats(BOUNDS_MILLIS);
+    private final LongAdder uploads = new LongAdder(), uploadFailures = new LongAdder(), creates = new LongAdder(),
+            deletes = new LongAdder(), renames = new LongAdder(), partials = new LongAdder(), slides = new LongAdder(),
+            truncatedAdmitted = new LongAdder(), staleSlides = new LongAdder(), churnFailures = new LongAdder();
+    private volatile boolean loading;
+    private volatile SlideshowEngine engine;
+
+    public LoadGenerator(Options options, Path root) {
+        this.options = options;
+        this.root = root;
+    }
+
+    /**
+     * Entry point for {@code --soak [folder] [--duration 2h] [--report 1m] [--seed N] [--folders N] [--max-files N]
+     * [--uploads R] [--clients N] [--creates R] [--deletes R] [--renames R] [--partials R] [--interval S]
+     * [--size WxH] [--csv file]}; returns the process exit code (2 when errors were seen).
+     */
+    public static int run(String[] args, PrintStream out) {
+        Path folder = null, csv = null;
+        Duration duration = Duration.ofHours(1), report = Duration.ofMinutes(1);
+        int seed = 200, folderCount = 20, maxFiles = 5000, clients = 4, interval = 1;
+        double uploadRate = 60, createRate = 60, deleteRate = 40, renameRate = 20, partialRate = 10;
+        String size = "1920x1080";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--soak" -> {}
+                    case "--duration" -> duration = parseDuration(args[++i]);
+                    case "--report" -> report = parseDuration(args[++i]);
+                    case "--seed" -> seed = Integer.parseInt(args[++i]);
+                    case "--folders" -> folderCount = Integer.parseInt(args[++i]);
+                    case "--max-files" -> maxFiles = Integer.parseInt(args[++i]);
+                    case "--uploads" -> uploadRate = Double.parseDouble(args[++i]);
+                    case "--clients" -> clients = Integer.parseInt(args[++i]);
+                    case "--creates" -> createRate = Double.parseDouble(args[++i]);
+                    case "--deletes" -> deleteRate = Double.parseDouble(args[++i]);
+                    case "--renames" -> renameRate = Double.parseDouble(args[++i]);
+                    case "--partials" -> partialRate = Double.parseDouble(args[++i]);
+                    case "--interval" -> interval = Integer.parseInt(args[++i]);
+                    case "--size" -> size = args[++i];
+                    case "--csv" -> csv = Path.of(args[++i]);
+                    default -> {
+                        if (folder != null || args[i].startsWith("--")) throw new IllegalArgumentException("unknown option " + args[i]);
+                        folder = Path.of(args[i]);
+                    }
+                }
+            }
+            String[] wh = size.toLowerCase(Locale.ROOT).split("x");
+            if (wh.length != 2) throw new IllegalArgumentException("--size must look like 1920x1080");
+            Options o = new Options(folder, duration, report, seed, Math.max(1, folderCount), maxFiles, uploadRate, Math.max(1, clients),
+                    createRate, deleteRate, renameRate, partialRate, Math.max(1, interval), Integer.parseInt(wh[0]), Integer.parseInt(wh[1]), csv);
+            Path root = folder != null ? folder.toAbsolutePath().normalize() : Files.createTempDirectory("glidewall-soak");
+            try {
+                return new LoadGenerator(o, root).soak(out);
+            } finally {
+                if (folder == null) deleteTree(root);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            out.println("Usage: --soak [folder] [--duration 2h] [--report 1m] [--seed N] [--folders N] [--max-files N] [--uploads R] [--clients N]"
+                    + " [--creates R] [--deletes R] [--renames R] [--partials R] [--interval S] [--size WxH] [--csv file]   (R: per minute)");
+            out.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            out.println("Soak failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /** Runs the soak for the configured duration and prints one line per report interval and a summary. */
+    public int soak(PrintStream out) throws IOException {
+        if (System.getProperty("glidewall.cacheDir") == null) System.setProperty("glidewall.cacheDir", root.resolve(".soak-cache").toString());
+        try {
+            Platform.startup(() -> {});
+        } catch (IllegalStateException alreadyStarted) {
+            // embedded in a running app
+        } catch (RuntimeException e) {
+            out.println("Soak needs the JavaFX toolkit for decoding (no window is shown); run it with a display, e.g. xvfb-run. " + e.getMessage());
+            return 1;
+        }
+        Platform.setImplicitExit(false);
+
+        for (int i = 0; i < SAMPLES; i++) samples.add(sampleJpeg(i));
+        for (int i = 0; i < options.folders(); i++) folders.add(Files.createDirectories(root.resolve(String.format("folder-%03d", i))));
+        for (int i = 0; i < options.seedFiles(); i++) {
+            Path f = randomFolder().resolve(name("seed"));
+            Files.write(f, sample());
+            synchronized (live) { live.add(f); }
+        }
+
+        FramePool frames = new FramePool(Integer.getInteger("glidewall.prefetch.depth", 3) + 6);
+        SlideDecoder decoder = new SlideDecoder(Long.getLong("glidewall.decode.maxMegapixels", 16) * 1_000_000, true, 24_000_000L, frames);
+        decoder.setTargetSize(options.width(), options.height());
+        SlidePrefetcher prefetcher = new SlidePrefetcher(decoder, Integer.getInteger("glidewall.prefetch.depth", 3), 2);
+        ImageValidator validator = new ImageValidator(Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThumbnailCache thumbs = new ThumbnailCache(120, 90, 1 << 20, null, 0, 1, 0);
+        GlideWallMetrics metrics = new GlideWallMetrics(thumbs, prefetcher, validator, () -> engine.state().imageCount());
+        engine = new SlideshowEngine(prefetcher, validator, metrics, 1);
+        metrics.registerMBean();
+        engine.setListener(new Probe());
+        RenditionStore renditions = new RenditionStore(AppDirs.cacheDir("renditions"), 64L * 1024 * 1024, 1);
+        UploadServer server = UploadServer.start(root, 0, 64L * 1024 * 1024, renditions, saved -> {
+            long now = System.nanoTime();
+            for (Path p : saved) arrivals.put(p, now);
+            synchronized (live) { live.addAll(saved); }
+            engine.uploaded(saved);
+        }, line -> {});
+
+        long t0 = System.nanoTime();
+        engine.open(root);
+        while (engine.state().imageCount() < options.seedFiles() && System.nanoTime() - t0 < 60_000_000_000L) sleep(100);
+        out.printf("Soak: %s, %d seed files in %d folders in rotation after %d ms; uploads %.0f/min (%d clients), creates %.0f, deletes %.0f, renames %.0f, partial writes %.0f per minute, slide every %d s, for %s%n",
+                root, engine.state().imageCount(), options.folders(), (System.nanoTime() - t0) / 1_000_000, options.uploadsPerMinute(), options.clients(),
+                options.createsPerMinute(), options.deletesPerMinute(), options.renamesPerMinute(), options.partialsPerMinute(), options.intervalSeconds(), options.duration());
+        engine.start(options.intervalSeconds());
+
+        PrintWriter csv = options.csv() == null ? null : new PrintWriter(Files.newBufferedWriter(options.csv()));
+        if (csv != null) csv.println("elapsed_s,images,pending,oldest_pending_ms,arrived,rotation_p50_ms,rotation_p95_ms,rotation_max_ms,slide_p95_ms,slide_max_ms,removal_p95_ms,heap_mb,direct_mb,cpu_pct,gc_count,gc_ms,threads,errors");
+        loading = true;
+        ExecutorService load = Executors.newVirtualThreadPerTaskExecutor();
+        URI uploadUri = URI.create("http://127.0.0.1:" + server.port() + "/");
+        for (int c = 0; c < options.clients(); c++) load.submit(() -> loop(options.uploadsPerMinute() / options.clients(), () -> upload(uploadUri)));
+        load.submit(() -> loop(options.createsPerMinute(), this::create));
+        load.submit(() -> loop(options.deletesPerMinute(), this::delete));
+        load.submit(() -> loop(options.renamesPerMinute(), this::rename));
+        load.submit(() -> loop(options.partialsPerMinute(), () -> partial(load)));
+
+        Resources last = Resources.sample();
+        long end = t0 + options.duration().toNanos();
+        try {
+            while (System.nanoTime() < end) {
+                sleep(Math.min(options.report().toMillis(), Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+                Resources now = Resources.sample();
+                out.println(reportLine(engine, last, now, csv));
+                last = now;
+            }
+        } finally {
+            loading = false;
+            load.shutdownNow();
+        }
+        long drainUntil = System.nanoTime() + DRAIN_MILLIS * 1_000_000;
+        while (!arrivals.isEmpty() && System.nanoTime() < drainUntil) sleep(250);
+        Resources now = Resources.sample();
+        out.println(reportLine(engine, last, now, csv));
+        if (csv != null) csv.close();
+
+        server.close();
+        engine.shutdown();
+        thumbs.shutdown();
+        renditions.shutdown();
+        Platform.exit();
+
+        long errors = errors();
+        out.printf("Summary: %d uploads (%d failed), %d creates, %d deletes, %d renames, %d partial writes, %d slides%n",
+                uploads.sum(), uploadFailures.sum(), creates.sum(), deletes.sum(), renames.sum(), partials.sum(), slides.sum());
+        out.printf("  arrival -> rotation  %s%n  arrival -> slide     %s%n  removal -> gone      %s%n",
+                describe(toRotation), describe(toSlide), describe(toRemoval));
+        out.printf("  never in rotation %d, aborted files admitted %d, deleted files shown %d, churn I/O failures %d%n",
+                arrivals.size(), truncatedAdmitted.sum(), staleSlides.sum(), churnFailures.sum());
+        return errors == 0 && arrivals.isEmpty() ? 0 : 2;
+    }
+
+    /** Records what reached the rotation and the screen; owns (and releases) every slide it receives. */
+    private final class Probe implements SlideshowEngine.Listener {
+        @Override public void slide(int screen, DecodedSlide slide, long deadline) {
+            Path file = slide.file();
+            slide.release();
+            slides.increment();
+            Long at = awaitingSlide.remove(file);
+            if (at != null) toSlide.recordSince(at);
+            if (gone.contains(file)) staleSlides.increment();
+        }
+
+        @Override public void libraryChanged(IndexDiff diff, boolean initial) {
+            long now = System.nanoTime();
+            for (Path p : diff.added()) {
+                if (abandoned.contains(p)) truncatedAdmitted.increment();
+                Long at = arrivals.remove(p);
+                if (at != null) { toRotation.record(now - at); awaitingSlide.put(p, at); }
+            }
+            for (Path p : diff.removed()) {
+                awaitingSlide.remove(p);
+                Long at = removals.remove(p);
+                if (at != null) { toRemoval.record(now - at); gone.add(p); }
+            }
+        }
+    }
+
+    private void upload(URI uri) throws IOException {
+        makeRoom();
+        String boundary = "----glidewall-soak-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        byte[] head = ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"files\"; filename=\"" + name("up") + "\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = sample();
+        HttpURLConnection c = (HttpURLConnection) uri.toURL().openConnection();
+        try {
+            c.setRequestMethod("POST");
+            c.setDoOutput(true);
+            c.setInstanceFollowRedirects(false);
+            c.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+            c.setFixedLengthStreamingMode(head.length + body.length + tail.length);
+            try (OutputStream os = c.getOutputStream()) {
+                os.write(head);
+                os.write(body);
+                os.write(tail);
+            }
+            uploads.increment();
+            if (c.getResponseCode() != 303) uploadFailures.increment();
+        } catch (IOException e) {
+            uploadFailures.increment();
+        } finally {
+            c.disconnect();
+        }
+    }
+
+    private void create() throws IOException {
+        makeRoom();
+        Path f = randomFolder().resolve(name("new"));
+        Files.write(f, sample());
+        arrived(f);
+        creates.increment();
+    }
+
+    private void delete() throws IOException {
+        Path f = takeRandom();
+        if (f == null) return;
+        leaving(f);
+        Files.deleteIfExists(f);
+        deletes.increment();
+    }
+
+    private void rename() throws IOException {
+        Path from = takeRandom();
+        if (from == null) return;
+        Path to = randomFolder().resolve(name("mv"));
+        leaving(from);
+        Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+        arrived(to);
+        renames.increment();
+    }
+
+    // A slow copy: the first 40% appear, the rest follows after a pause, or never for an aborted one.
+    private void partial(ExecutorService load) throws IOException {
+        makeRoom();
+        Path f = randomFolder().resolve(name("part"));
+        byte[] data = sample();
+        int cut = data.length * 2 / 5;
+        boolean abort = ThreadLocalRandom.current().nextDouble() < ABANDON_RATIO;
+        if (abort) abandoned.add(f);
+        try (OutputStream os = Files.newOutputStream(f)) { os.write(data, 0, cut); }
+        partials.increment();
+        if (abort) return;
+        load.submit(() -> {
+            sleep(PARTIAL_PAUSE_MILLIS);
+            try (OutputStream os = Files.newOutputStream(f, StandardOpenOption.APPEND)) { os.write(data, cut, data.length - cut); } catch (IOException e) { churnFailures.increment(); return; }
+            arrived(f);
+        });
+    }
+
+    private interface Op { void run() throws IOException; }
+
+    // Poisson arrivals at {@code perMinute}; I/O errors (e.g. a file renamed away meanwhile) are counted, not fatal.
+    private void loop(double perMinute, Op op) {
+        if (perMinute <= 0) return;
+        double meanMillis = 60_000 / perMinute;
+        while (loading && !Thread.currentThread().isInterrupted()) {
+            sleep((long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanMillis));
+            if (!loading) return;
+            try { op.run(); } catch (IOException e) { churnFailures.increment(); }
+        }
+    }
+
+    private void arrived(Path f) {
+        arrivals.put(f, System.nanoTime());
+        synchronized (live) { live.add(f); }
+    }
+
+    // A file that never reached the rotation just stops being waited for; one in rotation is timed until it leaves.
+    private void leaving(Path f) {
+        if (arrivals.remove(f) == null) removals.put(f, System.nanoTime());
+    }
+
+    // Keeps the tree at --max-files: an arrival beyond it first deletes a random file.
+    private void makeRoom() throws IOException {
+        int n;
+        synchronized (live) { n = live.size(); }
+        if (n >= options.maxFiles()) delete();
+    }
+
+    private Path takeRandom() {
+        synchronized (live) {
+            if (live.isEmpty()) return null;
+            int i = ThreadLocalRandom.current().nextInt(live.size());
+            Path f = live.get(i);
+            live.set(i, live.get(live.size() - 1));
+            live.remove(live.size() - 1);
+            return f;
+        }
+    }
+
+    private Path randomFolder() { return folders.get(ThreadLocalRandom.current().nextInt(folders.size())); }
+
+    private String name(String kind) { return String.format("%s-%07d.jpg", kind, names.incrementAndGet()); }
+
+    private byte[] sample() { return samples.get(ThreadLocalRandom.current().nextInt(samples.size())); }
+
+    private long errors() { return truncatedAdmitted.sum() + staleSlides.sum(); }
+
+    private String reportLine(SlideshowEngine engine, Resources from, Resources to, PrintWriter csv) {
+        double elapsed = (to.nanos - from.nanos) / 1e9;
+        double cpu = elapsed <= 0 ? 0 : (to.cpuNanos - from.cpuNanos) / 1e9 / elapsed / Runtime.getRuntime().availableProcessors() * 100;
+        long oldest = arrivals.values().stream().mapToLong(Long::longValue).min().orElse(to.nanos);
+        long oldestMillis = (to.nanos - oldest) / 1_000_000;
+        int images = engine.state().imageCount();
+        long arrived = toRotation.count() + arrivals.size();
+        if (csv != null) {
+            csv.printf(Locale.ROOT, "%.0f,%d,%d,%d,%d,%.0f,%.0f,%.0f,%.0f,%.0f,%.0f,%d,%d,%.1f,%d,%d,%d,%d%n",
+                    (to.nanos - Resources.START) / 1e9, images, arrivals.size(), oldestMillis, arrived,
+                    toRotation.quantileMillis(0.5), toRotation.quantileMillis(0.95), toRotation.maxMillis(), toSlide.quantileMillis(0.95), toSlide.maxMillis(),
+                    toRemoval.quantileMillis(0.95), to.heap >> 20, to.direct >> 20, cpu, to.gcCount - from.gcCount, to.gcMillis - from.gcMillis, to.threads, errors());
+            csv.flush();
+        }
+        return String.format(Locale.ROOT, "%6.0fs images %d  pending %d (oldest %d ms)  rotation p50 %.0f p95 %.0f max %.0f ms  slide p95 %.0f ms  removal p95 %.0f ms"
+                        + "  heap %d MB  direct %d MB  cpu %.0f%%  gc %d (%d ms)  threads %d  errors %d",
+                (to.nanos - Resources.START) / 1e9, images, arrivals.size(), oldestMillis,
+                toRotation.quantileMillis(0.5), toRotation.quantileMillis(0.95), toRotation.maxMillis(), toSlide.quantileMillis(0.95), toRemoval.quantileMillis(0.95),
+                to.heap >> 20, to.direct >> 20, cpu, to.gcCount - from.gcCount, to.gcMillis - from.gcMillis, to.threads, errors());
+    }
+
+    private static String describe(LatencyStats s) {
+        return String.format(Locale.ROOT, "n %d  mean %.0f  p50 %.0f  p95 %.0f  p99 %.0f  max %.0f ms",
+                s.count(), s.meanMillis(), s.quantileMillis(0.5), s.quantileMillis(0.95), s.quantileMillis(0.99), s.maxMillis());
+    }
+
+    /** Process resources at one point in time. */
+    private record Resources(long nanos, long cpuNanos, long heap, long direct, long gcCount, long gcMillis, int threads) {
+        static final long START = System.nanoTime();
+
+        static Resources sample() {
+            long cpu = ProcessHandle.current().info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+            long direct = 0;
+            for (BufferPoolMXBean b : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) if ("direct".equals(b.getName())) direct = b.getMemoryUsed();
+            long count = 0, millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) { count += Math.max(0, gc.getCollectionCount()); millis += Math.max(0, gc.getCollectionTime()); }
+            return new Resources(System.nanoTime(), cpu, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), direct, count, millis, ManagementFactory.getThreadMXBean().getThreadCount());
+        }
+    }
+
+    // Photo-sized JPEGs that differ per index, so every written file is a real, decodable image.
+    private static byte[] sampleJpeg(int i) throws IOException {
+        BufferedImage img = new BufferedImage(2400, 1600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        float hue = i / (float) SAMPLES;
+        g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(hue, 0.6f, 0.9f), 2400, 1600, Color.getHSBColor(hue + 0.3f, 0.8f, 0.4f)));
+        g.fillRect(0, 0, 2400, 1600);
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        for (int k = 0; k < 40; k++) {
+            g.setColor(new Color(r.nextInt(0x1000000)));
+            g.fillOval(r.nextInt(2400), r.nextInt(1600), 50 + r.nextInt(400), 50 + r.nextInt(400));
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static Duration parseDuration(String s) {
+        String v = s.trim().toLowerCase(Locale.ROOT);
+        char unit = v.charAt(v.length() - 1);
+        if (Character.isDigit(unit)) return Duration.ofSeconds(Long.parseLong(v));
+        long n = Long.parseLong(v.substring(0, v.length() - 1));
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(n);
+            case 'm' -> Duration.ofMinutes(n);
+            case 'h' -> Duration.ofHours(n);
+            default -> throw new IllegalArgumentException("durations look like 90s, 30m or 6h");
+        };
+    }
+
+    private static void sleep(long millis) {
+        try { Thread.sleep(Math.max(0, millis)); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    private static void deleteTree(Path root) {
+        try (Stream<Path> s = Files.walk(root)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignored) {} });
+        } catch (IOException ignored) {}
+    }
+}
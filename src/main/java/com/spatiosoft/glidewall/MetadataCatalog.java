@@ -0,0 +1,225 @@
+package com.spatiosoft.glidewall;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent per-root catalog of image metadata, so a restart can start playing from what was known last time
+ * and reconcile with the disk in the background.
+ * <p>
+ * The catalog is an append-only log of put/remove records (paths stored relative to the root); replaying it on
+ * open yields the latest state, and it is compacted when obsolete records outnumber live ones. A torn tail from a
+ * crash is truncated on open. Entries are only written for files that went through validation, and carry its
+ * verdict for the size/mtime they were checked at.
+ */
+public class MetadataCatalog implements AutoCloseable {
+    /**
+     * Metadata for one image; {@code 0} / {@code -1} mean not (yet) known. Width and height are as stored, before
+     * the EXIF {@code orientation} (1..8) is applied. {@code rejected} is the quarantine reason, null if the file
+     * passed validation.
+     */
+    public record ImageMeta(Path file, long size, long mtime, int width, int height, int orientation, long captureTime, String rejected) {
+        public boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size() && mtime == attrs.lastModifiedTime().toMillis();
+        }
+
+        public boolean passed() { return rejected == null; }
+
+        /** When the photo was taken, or the file's mtime if the header does not say. */
+        public long takenAt() { return captureTime > 0 ? captureTime : mtime; }
+    }
+
+    private static final int MAGIC = 0x4757_4332; // "GWC2"; older catalogs carry no verdict and are rebuilt
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path root;
+    private final Path file;
+    private final Map<Path, ImageMeta> entries = new HashMap<>();
+    private DataOutputStream out;
+    private long records;
+
+    private MetadataCatalog(Path root, Path file) {
+        this.root = root.toAbsolutePath();
+        this.file = file;
+    }
+
+    /** Opens (or creates) the catalog for {@code root} inside {@code catalogDir}. */
+    public static MetadataCatalog open(Path root, Path catalogDir) throws IOException {
+        Files.createDirectories(catalogDir);
+        MetadataCatalog c = new MetadataCatalog(root, catalogDir.resolve(hash(root.toAbsolutePath().toString()) + ".gwcat"));
+        c.load();
+        return c;
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized ImageMeta get(Path file) { return entries.get(file); }
+
+    public synchronized List<Path> paths() { return new ArrayList<>(entries.keySet()); }
+
+    public synchronized List<ImageMeta> all() { return new ArrayList<>(entries.values()); }
+
+    public synchronized void put(ImageMeta meta) throws IOException {
+        if (meta.equals(entries.put(meta.file, meta))) return;
+        writePut(out, meta);
+        records++;
+    }
+
+    public synchronized void remove(Path file) throws IOException {
+        if (entries.remove(file) == null) return;
+        out.writeByte(REMOVE);
+        out.writeUTF(relative(file));
+        records++;
+    }
+
+    /** Makes the records written so far durable (called once per batch of changes). */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Records the validation verdict for {@code file} ({@code rejected} null: passed) and returns up-to-date
+     * metadata, reusing the cataloged header fields when size and mtime are unchanged and otherwise reading
+     * dimensions, EXIF orientation and capture time from the file header. Rejected files are not parsed.
+     */
+    public ImageMeta refresh(Path file, String rejected) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size(), mtime = attrs.lastModifiedTime().toMillis();
+        ImageMeta known = get(file);
+        ImageMeta meta;
+        if (known != null && known.matches(attrs) && (rejected != null || known.passed())) {
+            meta = new ImageMeta(file, size, mtime, known.width, known.height, known.orientation, known.captureTime, rejected);
+        } else if (rejected != null) {
+            meta = new ImageMeta(file, size, mtime, 0, 0, 0, -1, rejected);
+        } else {
+            ExifReader.Exif exif = ExifReader.read(file);
+            int[] dims = exif.width() > 0 ? new int[] {exif.width(), exif.height()} : probeDimensions(file);
+            meta = new ImageMeta(file, size, mtime, dims[0], dims[1], exif.orientation(), exif.captureTime(), null);
+        }
+        put(meta);
+        return meta;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out == null) return;
+        out.close();
+        out = null;
+        if (records > 2L * entries.size() + 1000) compact();
+    }
+
+    private void load() throws IOException {
+        boolean rewrite = !Files.exists(file);
+        if (!rewrite) {
+            byte[] data = Files.readAllBytes(file);
+            ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+            DataInputStream in = new DataInputStream(bytes);
+            long lastGood = 0;
+            try {
+                if (in.readInt() != MAGIC || !in.readUTF().equals(root.toString())) throw new IOException("foreign catalog");
+                lastGood = data.length - bytes.available();
+                while (bytes.available() > 0) {
+                    byte type = in.readByte();
+                    Path p = root.resolve(in.readUTF());
+                    if (type == PUT) {
+                        entries.put(p, new ImageMeta(p, in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readShort(), in.readLong(), rejected(in.readUTF())));
+                    } else if (type == REMOVE) {
+                        entries.remove(p);
+                    } else throw new IOException("corrupt record");
+                    records++;
+                    lastGood = data.length - bytes.available();
+                }
+            } catch (EOFException torn) {
+                // a record cut short by a crash: drop it and keep appending after the last complete one
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) { ch.truncate(lastGood); }
+                rewrite = lastGood == 0;
+            } catch (IOException | RuntimeException e) {
+                entries.clear();
+                records = 0;
+                rewrite = true;
+            }
+        }
+        if (rewrite || records > 2L * entries.size() + 1000) compact();
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream raw = Files.newOutputStream(tmp); DataOutputStream w = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16))) {
+            w.writeInt(MAGIC);
+            w.writeUTF(root.toString());
+            for (ImageMeta m : entries.values()) writePut(w, m);
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) { ch.force(true); }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = entries.size();
+    }
+
+    private void writePut(DataOutputStream w, ImageMeta m) throws IOException {
+        w.writeByte(PUT);
+        w.writeUTF(relative(m.file));
+        w.writeLong(m.size);
+        w.writeLong(m.mtime);
+        w.writeInt(m.width);
+        w.writeInt(m.height);
+        w.writeShort(m.orientation);
+        w.writeLong(m.captureTime);
+        w.writeUTF(m.rejected == null ? "" : m.rejected);
+    }
+
+    private static String rejected(String stored) { return stored.isEmpty() ? null : stored; }
+
+    private String relative(Path p) {
+        return root.relativize(p.toAbsolutePath()).toString();
+    }
+
+    /** Reads width/height from the image header without decoding pixels; {0, 0} if unknown. */
+    public static int[] probeDimensions(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return new int[] {0, 0};
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return new int[] {0, 0};
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return new int[] {0, 0};
+        }
+    }
+
+    private static String hash(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(s.hashCode());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.spatiosoft.glidewall;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@link GlideWallMetrics} in the Prometheus text format on {@code http://127.0.0.1:<port>/metrics}.
+ * Bound to loopback only; scrape it through a local agent or an SSH tunnel.
+ */
+public class MetricsServer implements AutoCloseable {
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static MetricsServer start(GlideWallMetrics metrics, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+                byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                send(exchange, body);
+            }
+        });
+        server.setExecutor(null); // the dispatcher thread is enough for a scrape every few seconds
+        server.start();
+        return new MetricsServer(server);
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(200, head ? -1 : body.length);
+        if (head) return;
+        try (OutputStream out = exchange.getResponseBody()) { out.write(body); }
+    }
+}
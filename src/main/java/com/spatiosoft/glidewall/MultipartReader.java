@@ -0,0 +1,198 @@
+package com.spatiosoft.glidewall;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for {@code multipart/form-data} request bodies.
+ * <p>
+ * Parts are handed out one at a time with a body stream that reads straight from the request through a fixed
+ * buffer, so memory use is bounded by the buffer size rather than the upload size. A part's body must be read
+ * (or is skipped) before the next part is returned.
+ */
+public class MultipartReader {
+    private static final int MAX_LINE = 8 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+
+    /** One part: its headers (lower-case names) and a body stream that ends at the next boundary. */
+    public static final class Part {
+        private final Map<String, String> headers;
+        private final InputStream body;
+        private final String name;
+        private final String filename;
+
+        private Part(Map<String, String> headers, InputStream body) {
+            this.headers = headers;
+            this.body = body;
+            Map<String, String> disposition = params(headers.getOrDefault("content-disposition", ""));
+            this.name = disposition.get("name");
+            this.filename = disposition.get("filename");
+        }
+
+        public String header(String name) { return headers.get(name.toLowerCase(Locale.ROOT)); }
+        /** Form field name, or null. */
+        public String name() { return name; }
+        /** Client-side file name for file fields, or null. */
+        public String filename() { return filename; }
+        public InputStream body() { return body; }
+    }
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private PartStream current;
+
+    public MultipartReader(InputStream in, String boundary, int bufferSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buf = new byte[Math.max(bufferSize, MAX_LINE + 2 * delimiter.length)];
+        // the body opens with "--boundary" without a preceding CRLF; supply it so every delimiter looks alike
+        buf[0] = '\r';
+        buf[1] = '\n';
+        limit = 2;
+        current = new PartStream(); // the preamble, skipped by the first next()
+    }
+
+    /** Extracts the boundary parameter from a multipart Content-Type header, or null. */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) return null;
+        String b = params(contentType).get("boundary");
+        return b == null || b.isEmpty() || b.length() > 200 ? null : b;
+    }
+
+    /** Returns the next part, or null after the closing boundary. */
+    public Part next() throws IOException {
+        if (finished) return null;
+        current.skipRest();
+        if (!ensure(2)) throw new EOFException("multipart body ended after a boundary");
+        if (buf[pos] == '-' && buf[pos + 1] == '-') { finished = true; return null; }
+        readLine(); // rest of the delimiter line (optional transport padding)
+        Map<String, String> headers = new HashMap<>();
+        int headerBytes = 0;
+        for (String line; !(line = readLine()).isEmpty(); ) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) throw new IOException("multipart headers too large");
+            int colon = line.indexOf(':');
+            if (colon > 0) headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        current = new PartStream();
+        return new Part(headers, current);
+    }
+
+    // Makes at least n bytes available from pos, compacting the buffer first; false if the input ended before that.
+    private boolean ensure(int n) throws IOException {
+        if (limit - pos >= n) return true;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < n && !eof) {
+            int r = in.read(buf, limit, buf.length - limit);
+            if (r < 0) eof = true; else limit += r;
+        }
+        return limit >= n;
+    }
+
+    private String readLine() throws IOException {
+        int scanned = 0;
+        while (true) {
+            for (int i = pos + scanned; i < limit; i++) {
+                if (buf[i] != '\n') continue;
+                int end = i > pos && buf[i - 1] == '\r' ? i - 1 : i;
+                String line = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+                pos = i + 1;
+                return line;
+            }
+            scanned = limit - pos;
+            if (scanned >= MAX_LINE) throw new IOException("multipart header line too long");
+            if (!ensure(scanned + 1)) throw new EOFException("multipart body ended inside the part headers");
+        }
+    }
+
+    private int indexOfDelimiter(int from, int to) {
+        outer:
+        for (int i = from; i <= to - delimiter.length; i++) {
+            if (buf[i] != '\r') continue;
+            for (int j = 1; j < delimiter.length; j++) if (buf[i + j] != delimiter[j]) continue outer;
+            return i;
+        }
+        return -1;
+    }
+
+    private final class PartStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done || current != this) return -1;
+            if (len == 0) return 0;
+            while (true) {
+                int i = indexOfDelimiter(pos, limit);
+                if (i == pos) {
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                // without a match, the last delimiter.length - 1 bytes may still be the start of one
+                int available = i >= 0 ? i - pos : limit - pos - delimiter.length + 1;
+                if (available > 0) {
+                    int n = Math.min(len, available);
+                    System.arraycopy(buf, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                if (eof) throw new EOFException("multipart body ended before the closing boundary");
+                ensure(limit - pos + 1);
+            }
+        }
+
+        void skipRest() throws IOException {
+            byte[] sink = new byte[8192];
+            while (read(sink, 0, sink.length) >= 0) {}
+        }
+    }
+
+    // Parses "; key=value; key2=\"value\"" parameters of a header value; keys are lower-cased.
+    private static Map<String, String> params(String header) {
+        Map<String, String> out = new HashMap<>();
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int eq = header.indexOf('=', i);
+            if (eq < 0) break;
+            String key = header.substring(i + 1, eq).trim().toLowerCase(Locale.ROOT);
+            int end;
+            String value;
+            if (eq + 1 < header.length() && header.charAt(eq + 1) == '"') {
+                StringBuilder sb = new StringBuilder();
+                int j = eq + 2;
+                for (; j < header.length() && header.charAt(j) != '"'; j++) {
+                    sb.append(header.charAt(j)); // no backslash unescaping: old browsers send raw Windows paths
+                }
+                value = sb.toString();
+                end = header.indexOf(';', j);
+            } else {
+                end = header.indexOf(';', eq);
+                value = header.substring(eq + 1, end < 0 ? header.length() : end).trim();
+            }
+            out.putIfAbsent(key, value);
+            i = end;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,293 @@
+package com.spatiosoft.glidewall;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Play order of the slideshow: shuffled cycles over the library in which every image is shown once (or as often
+ * as its folder's weight says) before the next cycle starts.
+ * <p>
+ * Advancing and jumping are O(1); a new cycle is built once per pass, so it costs O(1) amortised per slide.
+ * Removals leave a tombstone that is skipped (compacted once they outnumber the live entries). New images are
+ * swapped into a random slot of the not-yet-played part of the current cycle, in O(1) and without reordering the
+ * rest; with {@code priority} they are queued to be shown next instead. Folder weights apply to the folder and its
+ * subfolders: 2 shows its images twice per cycle, 0.5 in every other cycle on average, 0 not at all. New images
+ * get as many slots (and queue places) as their folder's weight gives them.
+ * <p>
+ * With a sort key ({@link #setOrder}) cycles are played in key order instead of shuffled (e.g. by capture time);
+ * new images are inserted at their sorted position among the unplayed ones, and weights above 1 count as 1.
+ * Thread-safe.
+ */
+public class PlaylistScheduler {
+    private static final class Entry {
+        final Path path;
+        boolean removed;
+        boolean queued;
+        int copies; // slots a queued entry takes in the current cycle, counting the one it is shown from
+
+        Entry(Path path) { this.path = path; }
+    }
+
+    private final Random random;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>();
+    private final ArrayDeque<Entry> priority = new ArrayDeque<>();
+    private final Map<Path, Double> weights = new HashMap<>();
+    private final Map<Path, Double> weightCache = new HashMap<>();
+    private ToLongFunction<Path> order; // null: shuffled cycles
+    private List<Entry> cycle = new ArrayList<>();
+    private List<Entry> nextCycle; // built early when a look-ahead crosses the end of the cycle
+    private int cursor = -1; // last position of the cycle handed out
+    private int tombstones;
+    private Path current;
+
+    public PlaylistScheduler(Random random) {
+        this.random = random;
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized boolean isEmpty() { return entries.isEmpty(); }
+
+    public synchronized boolean contains(Path file) { return entries.containsKey(file); }
+
+    /** The image handed out last by {@link #next()} or {@link #jump(Path)}. */
+    public synchronized Path current() { return current; }
+
+    /** All images, in the order they were added. */
+    public synchronized List<Path> snapshot() { return new ArrayList<>(entries.keySet()); }
+
+    /**
+     * Adds images, as often as their folder's weight says for the current cycle (possibly not at all); with
+     * {@code priority} those that get a slot are shown next, in the given order, then play normally.
+     */
+    public synchronized void add(Collection<Path> files, boolean priority) {
+        for (Path p : files) {
+            if (entries.containsKey(p)) continue;
+            Entry e = new Entry(p);
+            entries.put(p, e);
+            int copies = copies(e);
+            if (priority && copies > 0) { e.queued = true; e.copies = copies; this.priority.add(e); }
+            else insertUnplayed(e, copies);
+        }
+    }
+
+    /** Removes images; their slots become tombstones that are skipped. */
+    public synchronized void remove(Collection<Path> files) {
+        for (Path p : files) {
+            Entry e = entries.remove(p);
+            if (e == null) continue;
+            e.removed = true;
+            tombstones++;
+            if (p.equals(current)) current = null;
+        }
+        if (tombstones > 64 && tombstones > entries.size()) compact();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        priority.clear();
+        cycle = new ArrayList<>();
+        nextCycle = null;
+        cursor = -1;
+        tombstones = 0;
+        current = null;
+    }
+
+    /** Returns the next image to show (queued new images first), or null if the playlist is empty. */
+    public synchronized Path next() {
+        Entry e = pollPriority();
+        if (e != null) {
+            insertPlayed(e);
+            return current = e.path;
+        }
+        if (entries.isEmpty()) return null;
+        while (true) {
+            if (cursor + 1 >= cycle.size()) {
+                startNextCycle();
+                if (cycle.isEmpty()) return null;
+            }
+            e = cycle.get(++cursor);
+            if (!e.removed) return current = e.path;
+        }
+    }
+
+    /** Shows {@code file} out of turn; the cycle carries on where it was. */
+    public synchronized boolean jump(Path file) {
+        if (!entries.containsKey(file)) return false;
+        current = file;
+        return true;
+    }
+
+    /** The next {@code count} images {@link #next()} will return (fewer if the playlist is smaller), for prefetching. */
+    public synchronized List<Path> upcoming(int count) {
+        List<Path> out = new ArrayList<>(count);
+        int n = entries.size();
+        if (n == 0 || count <= 0) return out;
+        for (Entry e : priority) {
+            if (out.size() >= count) return out;
+            if (!e.removed) out.add(e.path);
+        }
+        for (int i = cursor + 1; out.size() < count && i < cycle.size(); i++) if (!cycle.get(i).removed) out.add(cycle.get(i).path);
+        if (out.size() < count && out.size() < n) {
+            if (nextCycle == null) nextCycle = buildCycle();
+            for (int i = 0; out.size() < count && i < nextCycle.size(); i++) if (!nextCycle.get(i).removed) out.add(nextCycle.get(i).path);
+        }
+        return out;
+    }
+
+    /** Starts a fresh shuffled cycle (the Shuffle button). */
+    public synchronized void reshuffle() {
+        nextCycle = null;
+        startNextCycle();
+    }
+
+    /** Sets the weight of {@code folder} and everything below it; 1 is the default. Applies from the next cycle. */
+    public synchronized void setFolderWeight(Path folder, double weight) {
+        weights.put(folder, Math.max(0, weight));
+        weightCache.clear();
+        nextCycle = null;
+    }
+
+    /** Plays cycles sorted by {@code key} (ties by path) from the next cycle on; null goes back to shuffled cycles. */
+    public synchronized void setOrder(ToLongFunction<Path> key) {
+        order = key;
+        nextCycle = null;
+    }
+
+    /** Sorts the unplayed rest of the current cycle again, after sort keys became known (e.g. capture times read). */
+    public synchronized void resort() {
+        if (order == null) return;
+        sort(cycle.subList(cursor + 1, cycle.size()));
+        nextCycle = null;
+    }
+
+    private Entry pollPriority() {
+        Entry e;
+        while ((e = priority.poll()) != null) {
+            e.queued = false;
+            if (!e.removed) return e;
+        }
+        return null;
+    }
+
+    private void startNextCycle() {
+        cycle = nextCycle != null ? nextCycle : buildCycle();
+        nextCycle = null;
+        cursor = -1;
+        tombstones = 0;
+        for (Entry e : cycle) if (e.removed) tombstones++;
+    }
+
+    private List<Entry> buildCycle() {
+        List<Entry> slots = new ArrayList<>(entries.size());
+        Entry heaviest = null;
+        double heaviestWeight = -1;
+        for (Entry e : entries.values()) {
+            if (e.queued) continue; // queued: played from the queue, then slotted into the cycle
+            double w = weight(e);
+            if (w > heaviestWeight) { heaviest = e; heaviestWeight = w; }
+            for (int i = copies(w); i > 0; i--) slots.add(e);
+        }
+        if (slots.isEmpty() && heaviest != null) slots.add(heaviest); // all weights rounded to zero: still show something
+        if (this.order != null) { sort(slots); return slots; }
+        Collections.shuffle(slots, random);
+        // never start a cycle with the image that is on screen
+        if (slots.size() > 1 && current != null && slots.get(0).path.equals(current)) Collections.swap(slots, 0, 1 + random.nextInt(slots.size() - 1));
+        return slots;
+    }
+
+    // Weight of the entry's folder; repeats are capped in sorted cycles, where a repeat would play right after itself.
+    private double weight(Entry e) {
+        double w = weight(e.path.getParent());
+        return order != null ? Math.min(1, w) : w;
+    }
+
+    private int copies(Entry e) { return copies(weight(e)); }
+
+    // Fractional weights round up with the probability of their fraction.
+    private int copies(double w) {
+        int copies = (int) w;
+        if (random.nextDouble() < w - copies) copies++;
+        return copies;
+    }
+
+    // Appends, then swaps with a uniformly chosen unplayed slot: the unplayed part stays a uniform shuffle.
+    private void insertUnplayed(Entry e, int copies) {
+        for (int i = 0; i < copies; i++) insertInto(cycle, cursor + 1, e);
+        if (nextCycle != null) for (int i = copies(e); i > 0; i--) insertInto(nextCycle, 0, e);
+    }
+
+    // A queued image being shown now takes a played slot, so the current cycle does not repeat it more often
+    // than its weight says.
+    private void insertPlayed(Entry e) {
+        if (order != null) cycle.add(cursor + 1, e); // a swap would move an unplayed image out of its sorted place
+        else { cycle.add(e); Collections.swap(cycle, cycle.size() - 1, cursor + 1); }
+        cursor++;
+        insertUnplayed(e, e.copies - 1);
+        e.copies = 0;
+    }
+
+    private void insertInto(List<Entry> slots, int from, Entry e) {
+        if (order != null) { insertSorted(slots, from, e); return; }
+        slots.add(e);
+        int slot = from + random.nextInt(slots.size() - from);
+        Collections.swap(slots, slot, slots.size() - 1);
+    }
+
+    private void insertSorted(List<Entry> list, int from, Entry e) {
+        long key = order.applyAsLong(e.path);
+        int lo = from, hi = list.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Entry m = list.get(mid);
+            long k = order.applyAsLong(m.path);
+            if (k < key || (k == key && m.path.compareTo(e.path) < 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        list.add(lo, e);
+    }
+
+    // Keys are looked up once per entry, not once per comparison.
+    private void sort(List<Entry> list) {
+        record Keyed(Entry entry, long key) {}
+        List<Keyed> keyed = new ArrayList<>(list.size());
+        for (Entry e : list) keyed.add(new Keyed(e, order.applyAsLong(e.path)));
+        keyed.sort(Comparator.comparingLong(Keyed::key).thenComparing(k -> k.entry.path));
+        for (int i = 0; i < keyed.size(); i++) list.set(i, keyed.get(i).entry);
+    }
+
+    private void compact() {
+        List<Entry> live = new ArrayList<>(entries.size());
+        int played = 0;
+        for (int i = 0; i < cycle.size(); i++) {
+            Entry e = cycle.get(i);
+            if (e.removed) continue;
+            live.add(e);
+            if (i <= cursor) played++;
+        }
+        cycle = live;
+        cursor = played - 1;
+        tombstones = 0;
+        if (nextCycle != null) nextCycle.removeIf(e -> e.removed);
+    }
+
+    private double weight(Path folder) {
+        if (weights.isEmpty() || folder == null) return 1;
+        Double cached = weightCache.get(folder);
+        if (cached != null) return cached;
+        Double own = weights.get(folder);
+        double w = own != null ? own : weight(folder.getParent());
+        weightCache.put(folder, w);
+        return w;
+    }
+}
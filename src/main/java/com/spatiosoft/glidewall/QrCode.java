@@ -0,0 +1,34 @@
+package com.spatiosoft.glidewall;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * QR code for the uploader URL. Kept out of the controller so zxing is only loaded when the server window first
+ * shows a code, not at startup.
+ */
+final class QrCode {
+    private QrCode() {}
+
+    /** Renders {@code text} as a black-on-white QR code of {@code size} x {@code size} pixels. Any thread. */
+    static Image render(String text, int size) throws WriterException {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, 1);
+        BitMatrix matrix = new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, size, size, hints);
+        int w = matrix.getWidth(), h = matrix.getHeight();
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) px[y * w + x] = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+        WritableImage img = new WritableImage(w, h);
+        img.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), px, 0, w);
+        return img;
+    }
+}
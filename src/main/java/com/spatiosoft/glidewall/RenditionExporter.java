@@ -0,0 +1,288 @@
+package com.spatiosoft.glidewall;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Headless export ({@code --export}): converts a folder tree into display-sized JPEG renditions plus thumbnails,
+ * without starting JavaFX, so signage players can play pre-rendered content instead of decoding originals.
+ * <p>
+ * Files are discovered with {@link ImageIndex} (same rules as the slideshow) and converted on a fork-join pool;
+ * each original is decoded once, with ImageIO source subsampling, and the thumbnail is scaled from the rendition.
+ * The output mirrors the source tree, with thumbnails under {@code .thumbs/} (hidden directories are not played),
+ * a {@code playlist.txt} in play order, and a manifest of source size/mtime so reruns only convert what changed
+ * and delete renditions of removed originals. The output folder can be chosen as a slideshow folder directly.
+ */
+public class RenditionExporter {
+    public static final String MANIFEST = ".glidewall-export";
+    public static final String THUMBS_DIR = ".thumbs";
+    public static final String PLAYLIST = "playlist.txt";
+
+    /** Counts of one run. */
+    public record Result(int converted, int unchanged, int failed, int removed, long millis) {}
+
+    private record Source(long size, long mtime) {}
+
+    private final Path source;
+    private final Path target;
+    private final int width;
+    private final int height;
+    private final int thumbBox;
+    private final float quality;
+    private final boolean shuffle;
+    private final int parallelism;
+
+    public RenditionExporter(Path source, Path target, int width, int height, int thumbBox, float quality, boolean shuffle, int parallelism) {
+        this.source = source.toAbsolutePath().normalize();
+        this.target = target.toAbsolutePath().normalize();
+        this.width = width;
+        this.height = height;
+        this.thumbBox = thumbBox;
+        this.quality = quality;
+        this.shuffle = shuffle;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /** Standalone entry point, needs no JavaFX runtime: {@code java -cp glidewall-all.jar com.spatiosoft.glidewall.RenditionExporter <source> <target> ...}. */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Entry point for {@code --export <source> <target> [--size WxH] [--thumb N] [--quality Q] [--shuffle]
+     * [--threads N]}; returns the process exit code.
+     */
+    public static int run(String[] args, PrintStream out) {
+        List<String> paths = new ArrayList<>();
+        String size = "1920x1080";
+        int thumb = 320, threads = Runtime.getRuntime().availableProcessors();
+        float quality = 0.88f;
+        boolean shuffle = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--export" -> {}
+                    case "--size" -> size = args[++i];
+                    case "--thumb" -> thumb = Integer.parseInt(args[++i]);
+                    case "--quality" -> quality = Float.parseFloat(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--shuffle" -> shuffle = true;
+                    default -> paths.add(args[i]);
+                }
+            }
+            String[] wh = size.toLowerCase(Locale.ROOT).split("x");
+            if (paths.size() != 2) throw new IllegalArgumentException("expected a source and a target folder");
+            if (wh.length != 2) throw new IllegalArgumentException("--size must look like 1920x1080");
+            RenditionExporter exporter = new RenditionExporter(Path.of(paths.get(0)), Path.of(paths.get(1)), Integer.parseInt(wh[0]), Integer.parseInt(wh[1]), thumb, quality, shuffle, threads);
+            Result r = exporter.export(out::println);
+            out.printf("Exported %d, unchanged %d, failed %d, removed %d in %.1f s%n", r.converted(), r.unchanged(), r.failed(), r.removed(), r.millis() / 1000.0);
+            return r.failed() == 0 ? 0 : 2;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            out.println("Usage: --export <source> <target> [--size WxH] [--thumb N] [--quality 0..1] [--shuffle] [--threads N]");
+            out.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            out.println("Export failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    public Result export(Consumer<String> log) throws IOException {
+        long t0 = System.nanoTime();
+        if (source.equals(target) || source.startsWith(target)) throw new IOException("target must not contain the source folder");
+        if (!Files.isDirectory(source)) throw new IOException("not a folder: " + source);
+        Files.createDirectories(target);
+
+        ImageIndex index = new ImageIndex(source);
+        index.fullScan();
+        Map<Path, Source> found = new HashMap<>();
+        for (Path f : index.snapshot()) {
+            if (f.startsWith(target)) continue; // an export inside the source tree is not re-exported
+            try {
+                BasicFileAttributes a = Files.readAttributes(f, BasicFileAttributes.class);
+                found.put(source.relativize(f), new Source(a.size(), a.lastModifiedTime().toMillis()));
+            } catch (IOException ignored) {}
+        }
+
+        Path manifestFile = target.resolve(MANIFEST);
+        Map<Path, Source> previous = readManifest(manifestFile);
+        List<Path> todo = new ArrayList<>();
+        Map<Path, Source> done = new ConcurrentHashMap<>();
+        for (Map.Entry<Path, Source> e : found.entrySet()) {
+            Path rel = e.getKey();
+            if (e.getValue().equals(previous.get(rel)) && Files.isRegularFile(renditionPath(rel)) && Files.isRegularFile(thumbPath(rel))) done.put(rel, e.getValue());
+            else todo.add(rel);
+        }
+        int unchanged = done.size();
+        int removed = 0;
+        for (Path rel : previous.keySet()) {
+            if (found.containsKey(rel)) continue;
+            Files.deleteIfExists(renditionPath(rel));
+            Files.deleteIfExists(thumbPath(rel));
+            removed++;
+        }
+        log.accept(String.format("%d images: %d to convert, %d unchanged, %d removed", found.size(), todo.size(), unchanged, removed));
+
+        AtomicInteger failed = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ConvertTask(todo, 0, todo.size(), found, done, failed, log));
+        } finally {
+            pool.shutdown();
+        }
+        writeManifest(manifestFile, done);
+        writePlaylist(new ArrayList<>(done.keySet()));
+        return new Result(todo.size() - failed.get(), unchanged, failed.get(), removed, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    // Splits the work list until a slice is small enough to convert sequentially; idle workers steal the other halves.
+    private final class ConvertTask extends RecursiveAction {
+        private static final int SLICE = 4;
+        private final List<Path> files;
+        private final int from, to;
+        private final Map<Path, Source> found, done;
+        private final AtomicInteger failed;
+        private final Consumer<String> log;
+
+        ConvertTask(List<Path> files, int from, int to, Map<Path, Source> found, Map<Path, Source> done, AtomicInteger failed, Consumer<String> log) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.found = found;
+            this.done = done;
+            this.failed = failed;
+            this.log = log;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SLICE) {
+                for (int i = from; i < to; i++) {
+                    Path rel = files.get(i);
+                    if (convert(rel)) done.put(rel, found.get(rel));
+                    else { failed.incrementAndGet(); log.accept("Skipped " + rel + " (not readable as an image)"); }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ConvertTask(files, from, mid, found, done, failed, log), new ConvertTask(files, mid, to, found, done, failed, log));
+        }
+    }
+
+    private boolean convert(Path rel) {
+        Path file = source.resolve(rel);
+        BufferedImage rendition = RenditionStore.decodeFit(file, width, height, true);
+        if (rendition == null) return false;
+        try {
+            write(rendition, renditionPath(rel));
+            write(RenditionStore.fit(rendition, thumbBox, thumbBox), thumbPath(rel));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void write(BufferedImage img, Path out) throws IOException {
+        Files.createDirectories(out.getParent());
+        Path tmp = Files.createTempFile(out.getParent(), ".export", ".tmp");
+        try {
+            RenditionStore.writeJpeg(img, tmp, quality);
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Rendition of a source file, relative to the source root: same folders, JPEG names. */
+    Path renditionPath(Path rel) { return target.resolve(jpegName(rel)); }
+
+    Path thumbPath(Path rel) { return target.resolve(THUMBS_DIR).resolve(jpegName(rel)); }
+
+    // photo.jpg stays photo.jpg; everything else gets .jpg appended (a.png -> a.png.jpg). A JPEG whose name would
+    // look like that (a.png.jpg) is renamed too (a.png.jpg.jpg): kept names never end in two image extensions,
+    // appended ones always do, so no two sources share a rendition.
+    static Path jpegName(Path rel) {
+        String name = rel.getFileName().toString();
+        String lower = name.toLowerCase(Locale.ROOT);
+        boolean jpeg = lower.endsWith(".jpg") || lower.endsWith(".jpeg");
+        boolean keep = jpeg && !ImageIndex.isImageFile(Path.of(name.substring(0, name.lastIndexOf('.'))));
+        return rel.resolveSibling(keep ? name : name + ".jpg");
+    }
+
+    /** Whether {@code folder} is the target of an export (and so has pre-rendered thumbnails). */
+    public static boolean isExport(Path folder) { return Files.isRegularFile(folder.resolve(MANIFEST)); }
+
+    /**
+     * The pre-rendered thumbnail of {@code rendition} in the export at {@code root}, or null if there is none or the
+     * rendition was replaced after it was rendered.
+     */
+    public static Path exportedThumb(Path root, Path rendition) {
+        Path r = root.toAbsolutePath().normalize(), file = rendition.toAbsolutePath().normalize();
+        if (!file.startsWith(r) || file.startsWith(r.resolve(THUMBS_DIR))) return null;
+        Path thumb = r.resolve(THUMBS_DIR).resolve(r.relativize(file));
+        try {
+            return Files.getLastModifiedTime(thumb).compareTo(Files.getLastModifiedTime(file)) >= 0 ? thumb : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Same ordering rules as a fresh slideshow: by path, or shuffled as a whole.
+    private void writePlaylist(List<Path> rels) throws IOException {
+        if (shuffle) Collections.shuffle(rels, new Random());
+        else rels.sort(null);
+        List<String> lines = new ArrayList<>(rels.size());
+        for (Path rel : rels) lines.add(jpegName(rel).toString().replace('\\', '/'));
+        Path tmp = target.resolve(PLAYLIST + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, target.resolve(PLAYLIST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // One line per exported source: size, mtime, settings and relative path, tab separated.
+    private Map<Path, Source> readManifest(Path file) {
+        Map<Path, Source> m = new HashMap<>();
+        if (!Files.isRegularFile(file)) return m;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] f = line.split("\t", 4);
+                if (f.length != 4 || !f[2].equals(settings())) continue; // other size/quality: convert again
+                m.put(Path.of(f[3]), new Source(Long.parseLong(f[0]), Long.parseLong(f[1])));
+            }
+        } catch (IOException | RuntimeException ignored) {}
+        return m;
+    }
+
+    private void writeManifest(Path file, Map<Path, Source> entries) throws IOException {
+        Path tmp = file.resolveSibling(MANIFEST + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Path, Source> e : entries.entrySet()) {
+                w.write(e.getValue().size() + "\t" + e.getValue().mtime() + "\t" + settings() + "\t" + e.getKey());
+                w.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // "upright": renditions are turned per EXIF orientation; exports from before that are converted again.
+    private String settings() { return width + "x" + height + "/" + thumbBox + "/" + quality + "/upright"; }
+}
@@ -0,0 +1,225 @@
+package com.spatiosoft.glidewall;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Disk store of downscaled JPEG renditions (gallery thumbnails and screen-sized previews) shared by all gallery
+ * clients.
+ * <p>
+ * Renditions are keyed by path + mtime + size + kind, so an edited file never serves a stale rendition, and are
+ * generated once: concurrent requests for the same rendition wait for a single decode, and the number of decodes
+ * in flight is bounded because large originals are expensive to read. Decoding goes through ImageIO with source
+ * subsampling (no JavaFX needed on request threads).
+ * <p>
+ * Each kind is a {@link DiskCache} (a quarter of the byte budget for thumbnails, the rest for previews): a new
+ * version of a file replaces its old renditions, {@link #remove} drops those of deleted files, and the least
+ * recently served renditions go first when the budget is exceeded. In a folder written by {@link RenditionExporter}
+ * the pre-rendered thumbnails are served as they are.
+ */
+public class RenditionStore {
+    public enum Kind {
+        THUMB(320), PREVIEW(1600);
+
+        final int box;
+        Kind(int box) { this.box = box; }
+    }
+
+    private static final int USE_ORIGINAL_ENTRIES = 16_384;
+
+    private final Map<Kind, DiskCache> stores = new EnumMap<>(Kind.class);
+    private final Semaphore decodes;
+    private volatile Path exportRoot; // folder with pre-rendered thumbnails, or null
+    private final ExecutorService warmer;
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // Rendition keys known to need none -> their original; LRU-bounded, as keys of changed originals are never asked for again.
+    private final Map<Path, Path> useOriginal = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Path, Path> eldest) { return size() > USE_ORIGINAL_ENTRIES; }
+    });
+
+    /** @param maxBytes disk budget of all renditions together */
+    public RenditionStore(Path dir, long maxBytes, int maxConcurrentDecodes) {
+        stores.put(Kind.THUMB, new DiskCache(dir.resolve("thumb"), maxBytes / 4, ".jpg"));
+        stores.put(Kind.PREVIEW, new DiskCache(dir.resolve("preview"), maxBytes - maxBytes / 4, ".jpg"));
+        this.decodes = new Semaphore(Math.max(1, maxConcurrentDecodes));
+        this.warmer = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "rendition-warm"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t; });
+    }
+
+    /**
+     * Returns the stored rendition of {@code file}, generating it if needed, or null when the original should be
+     * served as is (already small, animated GIF preview, or a format ImageIO cannot read).
+     */
+    public Path get(Path file, Kind kind) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        Path root = exportRoot;
+        Path exported = root == null || kind != Kind.THUMB ? null : RenditionExporter.exportedThumb(root, file);
+        if (exported != null) return exported;
+        DiskCache store = stores.get(kind);
+        Path target = store.path(file, attrs.lastModifiedTime().toMillis() + "|" + attrs.size() + "|upright");
+        if (store.get(target) != null) return target;
+        if (useOriginal.containsKey(target)) return null;
+        if (kind == Kind.PREVIEW && file.getFileName().toString().toLowerCase().endsWith(".gif")) return null;
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(target, mine);
+        if (running != null) return join(running);
+        try {
+            Path out = store.get(target) != null ? target : generate(file, kind, target);
+            if (out == null) useOriginal.put(target, file);
+            else store.stored(out);
+            mine.complete(out);
+            return out;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, mine);
+        }
+    }
+
+    /** Generates thumbnails for freshly saved files in the background, so the first gallery view is fast. */
+    public void warm(Collection<Path> files) {
+        for (Path f : files) warmer.submit(() -> { try { get(f, Kind.THUMB); } catch (IOException ignored) {} });
+    }
+
+    /** Serves thumbnails from the export at {@code root} from now on; null when the folder is not an export. */
+    public void setExportRoot(Path root) { exportRoot = root; }
+
+    /** Deletes the renditions of {@code files} (originals that are gone), in the background. */
+    public void remove(Collection<Path> files) {
+        if (files.isEmpty()) return;
+        List<Path> gone = List.copyOf(files);
+        warmer.submit(() -> {
+            for (Path f : gone) for (DiskCache store : stores.values()) store.remove(f);
+            synchronized (useOriginal) { useOriginal.values().removeAll(gone); }
+        });
+    }
+
+    public void shutdown() {
+        warmer.shutdownNow();
+    }
+
+    private Path generate(Path file, Kind kind, Path target) throws IOException {
+        decodes.acquireUninterruptibly();
+        try {
+            BufferedImage scaled = decodeFit(file, kind.box, kind.box, false);
+            if (scaled == null) return null;
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "rendition", ".tmp");
+            try {
+                writeJpeg(scaled, tmp, kind == Kind.THUMB ? 0.8f : 0.85f);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return target;
+        } finally {
+            decodes.release();
+        }
+    }
+
+    /**
+     * Reads {@code file} with source subsampling down to ~2x the box, then scales it to fit the box (never up) as an
+     * opaque RGB image turned upright per its EXIF orientation. Returns null if ImageIO cannot read it, or if it
+     * already fits and {@code evenIfFits} is false.
+     */
+    static BufferedImage decodeFit(Path file, int maxWidth, int maxHeight, boolean evenIfFits) {
+        int orientation = ExifReader.orientation(file);
+        if (orientation >= 5) { int t = maxWidth; maxWidth = maxHeight; maxHeight = t; } // fit the stored pixels, then turn
+        if (orientation > 1) evenIfFits = true; // the original would be shown sideways
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int srcW = reader.getWidth(0), srcH = reader.getHeight(0);
+                if (srcW <= maxWidth && srcH <= maxHeight && !evenIfFits) return null;
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(srcW / (2 * maxWidth), srcH / (2 * maxHeight)));
+                if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage src = reader.read(0, param);
+                return orient(fit(src, maxWidth, maxHeight), orientation);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null; // unreadable for ImageIO (e.g. WEBP)
+        }
+    }
+
+    /** Scales {@code src} to fit the box (never up) onto an opaque RGB image, bilinear. */
+    static BufferedImage fit(BufferedImage src, int maxWidth, int maxHeight) {
+        double f = Math.min(1, Math.min((double) maxWidth / src.getWidth(), (double) maxHeight / src.getHeight()));
+        int w = Math.max(1, (int) Math.round(src.getWidth() * f)), h = Math.max(1, (int) Math.round(src.getHeight() * f));
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(src, 0, 0, w, h, Color.BLACK, null);
+        g.dispose();
+        return out;
+    }
+
+    /** {@code img} turned into display orientation (EXIF orientation 1..8); orientation 1 returns it as is. */
+    static BufferedImage orient(BufferedImage img, int orientation) {
+        if (orientation <= 1 || orientation > 8) return img;
+        int w = img.getWidth(), h = img.getHeight();
+        int[] px = ExifReader.orient(img.getRGB(0, 0, w, h, null, 0, w), w, h, orientation);
+        BufferedImage out = orientation >= 5 ? new BufferedImage(h, w, BufferedImage.TYPE_INT_RGB) : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        out.setRGB(0, 0, out.getWidth(), out.getHeight(), px, 0, out.getWidth());
+        return out;
+    }
+
+    static void writeJpeg(BufferedImage img, Path target, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static Path join(CompletableFuture<Path> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+}
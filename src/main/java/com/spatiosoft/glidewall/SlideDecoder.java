@@ -0,0 +1,293 @@
+package com.spatiosoft.glidewall;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Decodes slides for the main view at the size they are displayed at.
+ * <p>
+ * The decode bounds follow the visible image area in device pixels (HiDPI scale included) and are capped at
+ * {@code maxPixels}, so a 48 MP panorama on a 1080p wall costs ~8 MB instead of ~190 MB. JavaFX's own decoder
+ * still reads the full-resolution raster before scaling; for very large JPEGs the decoder instead reads through
+ * ImageIO with source subsampling, which skips most of the pixels while decoding. Photos with an EXIF orientation
+ * are decoded to fit the turned bounds and turned upright here, once per decode, so the view never rotates.
+ * <p>
+ * With a {@link FramePool}, JPEGs are decoded by ImageIO into a reused scratch raster and scaled (and turned)
+ * straight into a recycled off-heap frame, so the steady state allocates no pixel memory per slide. Other formats,
+ * JPEGs ImageIO cannot read into an RGB raster (greyscale, CMYK) and decodes that find no free frame take the heap
+ * path above.
+ */
+public class SlideDecoder {
+    /**
+     * A decoded slide together with the bounds it was decoded for. {@code width x height} is the slide; a slide in
+     * a pooled {@code frame} fills only that part of {@code image}. Whoever receives a slide owns one reference to
+     * its frame and must {@link #release()} it (or hand it on); {@link #retain()} takes another one.
+     */
+    public record DecodedSlide(Path file, Image image, int width, int height, double targetWidth, double targetHeight, FramePool.Frame frame) {
+        public DecodedSlide(Path file, Image image, double targetWidth, double targetHeight) {
+            this(file, image, (int) image.getWidth(), (int) image.getHeight(), targetWidth, targetHeight, null);
+        }
+
+        public DecodedSlide retain() { if (frame != null) frame.retain(); return this; }
+
+        public void release() { if (frame != null) frame.release(); }
+    }
+
+    // Scratch rasters for ImageIO, one per concurrent decode, kept for the life of the decoder.
+    private static final long SCRATCH_PIXELS = Long.getLong("glidewall.decode.scratchMegapixels", 32) * 1_000_000;
+
+    private final long maxPixels;
+    private final boolean subsampleHuge;
+    private final long hugePixels;
+    private volatile double targetWidth;
+    private volatile double targetHeight;
+    private volatile ToIntFunction<Path> orientations = ExifReader::orientation;
+    private final LatencyStats latency = new LatencyStats();
+    private final LongAdder failures = new LongAdder();
+    private final FramePool frames;
+    private final ConcurrentLinkedQueue<BufferedImage> scratch = new ConcurrentLinkedQueue<>();
+
+    public SlideDecoder(long maxPixels, boolean subsampleHuge, long hugePixels) {
+        this(maxPixels, subsampleHuge, hugePixels, null);
+    }
+
+    /** {@code frames}: pool to decode JPEGs into, or null to always decode to heap images. */
+    public SlideDecoder(long maxPixels, boolean subsampleHuge, long hugePixels, FramePool frames) {
+        this.maxPixels = Math.max(1, maxPixels);
+        this.subsampleHuge = subsampleHuge;
+        this.hugePixels = hugePixels;
+        this.frames = frames;
+    }
+
+    /** Null when slides are decoded to the heap. */
+    public FramePool frames() { return frames; }
+
+    public void setTargetSize(double width, double height) {
+        double w = Math.max(0, width), h = Math.max(0, height);
+        if (w * h > maxPixels) {
+            double f = Math.sqrt(maxPixels / (w * h));
+            w = Math.floor(w * f);
+            h = Math.floor(h * f);
+        }
+        targetWidth = w;
+        targetHeight = h;
+        if (frames != null) frames.setFrameSize((int) Math.ceil(w), (int) Math.ceil(h)); // slides are fitted (and turned) into these bounds
+    }
+
+    public double targetWidth() { return targetWidth; }
+    public double targetHeight() { return targetHeight; }
+
+    /** Where the EXIF orientation of a file comes from (e.g. the metadata catalog); defaults to reading its header. */
+    public void setOrientations(ToIntFunction<Path> orientations) { this.orientations = orientations == null ? ExifReader::orientation : orientations; }
+
+    /** Wall-clock time per successful decode (prefetched or direct). */
+    public LatencyStats latency() { return latency; }
+
+    public long failures() { return failures.sum(); }
+
+    /** True when the target bounds moved more than 25% away from the bounds a slide was decoded for. */
+    public boolean needsRedecode(DecodedSlide slide) {
+        return differs(slide.targetWidth, targetWidth) || differs(slide.targetHeight, targetHeight);
+    }
+
+    /** True if a frame decoded for the given bounds is still sharp enough for the current target. */
+    public boolean fits(double width, double height) {
+        return (width == 0 || width >= targetWidth * 0.9) && (height == 0 || height >= targetHeight * 0.9);
+    }
+
+    /** Decodes {@code file} at the current target size; returns null if it cannot be decoded. */
+    public DecodedSlide decode(Path file) {
+        long start = System.nanoTime();
+        double w = targetWidth, h = targetHeight;
+        int orientation = isJpeg(file) ? orientations.applyAsInt(file) : 1;
+        boolean turned = orientation >= 5;
+        double dw = turned ? h : w, dh = turned ? w : h; // bounds for the pixels as stored
+        if (frames != null && isJpeg(file)) {
+            FramePool.Frame frame = decodeIntoFrame(file, dw, dh, orientation);
+            if (frame != null) {
+                latency.recordSince(start);
+                return new DecodedSlide(file, frame.image(), frame.width(), frame.height(), w, h, frame);
+            }
+        }
+        Image img = null;
+        if (subsampleHuge && isJpeg(file)) img = decodeSubsampled(file, dw, dh);
+        if (img == null && isWebp(file)) img = decodeWithImageIO(file, dw, dh);
+        if (img == null) {
+            try {
+                // backgroundLoading=false: the constructor returns with the pixels fully decoded
+                img = new Image(file.toUri().toString(), dw, dh, true, true, false);
+            } catch (Exception e) {
+                failures.increment();
+                return null;
+            }
+        }
+        if (img.isError()) { failures.increment(); return null; }
+        if (orientation > 1) img = orient(img, orientation);
+        latency.recordSince(start);
+        return new DecodedSlide(file, img, w, h);
+    }
+
+    // Returns null when the file is not huge (or ImageIO cannot read it) so the caller uses the FX decoder.
+    private Image decodeSubsampled(Path file, double w, double h) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int srcW = reader.getWidth(0), srcH = reader.getHeight(0); // header only
+                long srcPixels = (long) srcW * srcH;
+                if (srcPixels <= hugePixels) return null;
+                int step = 1;
+                if (w > 0 && h > 0) step = (int) Math.floor(Math.max(srcW / w, srcH / h)); // still >= the fitted size
+                step = Math.max(step, (int) Math.ceil(Math.sqrt((double) srcPixels / maxPixels)));
+                if (step < 2) return null;
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage bi = reader.read(0, param);
+                return SwingFXUtils.toFXImage(bi, null);
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // JavaFX has no WEBP decoder; an ImageIO plugin may (the validator only admits WEBP files when one is installed).
+    private static Image decodeWithImageIO(Path file, double w, double h) {
+        int box = 1 << 14; // bounds not known yet: full size
+        BufferedImage bi = RenditionStore.decodeFit(file, w > 0 ? (int) Math.ceil(w) : box, h > 0 ? (int) Math.ceil(h) : box, true);
+        return bi == null ? null : SwingFXUtils.toFXImage(bi, null);
+    }
+
+    // Null when the file needs the heap path: no free frame, or ImageIO cannot decode it into an RGB raster.
+    private FramePool.Frame decodeIntoFrame(Path file, double w, double h, int orientation) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int srcW = reader.getWidth(0), srcH = reader.getHeight(0);
+                double scale = w > 0 && h > 0 ? Math.min(1, Math.min(w / srcW, h / srcH)) : 1;
+                scale = Math.min(scale, Math.sqrt((double) maxPixels / ((double) srcW * srcH)));
+                int outW = Math.max(1, (int) Math.round(srcW * scale)), outH = Math.max(1, (int) Math.round(srcH * scale));
+                // source subsampling keeps at least the output size; the rest is averaged down in scaleInto
+                int step = Math.max(1, (int) Math.floor(1 / scale));
+                while ((long) ceilDiv(srcW, step) * ceilDiv(srcH, step) > SCRATCH_PIXELS) step++;
+                int decW = ceilDiv(srcW, step), decH = ceilDiv(srcH, step);
+                boolean turned = orientation >= 5;
+                FramePool.Frame frame = frames.acquire(turned ? outH : outW, turned ? outW : outH);
+                if (frame == null) return null;
+                BufferedImage raster = scratch(decW, decH);
+                try {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    param.setDestination(raster);
+                    reader.read(0, param);
+                    int[] src = ((DataBufferInt) raster.getRaster().getDataBuffer()).getData();
+                    scaleInto(src, raster.getWidth(), decW, decH, outW, outH, orientation, frame.pixels(), frame.stride());
+                    frame.filled(turned ? outH : outW, turned ? outW : outH);
+                    return frame;
+                } catch (Exception e) {
+                    frame.release();
+                    return null;
+                } finally {
+                    scratch.add(raster);
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // A scratch raster of at least w x h; a too small one is replaced, so they settle at the largest decode size.
+    private BufferedImage scratch(int w, int h) {
+        BufferedImage img = scratch.poll();
+        if (img != null && img.getWidth() >= w && img.getHeight() >= h) return img;
+        int sw = Math.max(w, img == null ? 0 : img.getWidth()), sh = Math.max(h, img == null ? 0 : img.getHeight());
+        return new BufferedImage(sw, sh, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Box-averages the {@code srcW x srcH} RGB pixels (row stride {@code stride}) down to {@code outW x outH} and
+     * writes them turned upright as opaque premultiplied ARGB. Same orientation mapping as {@link ExifReader#orient}.
+     */
+    static void scaleInto(int[] src, int stride, int srcW, int srcH, int outW, int outH, int orientation, IntBuffer dst, int dstStride) {
+        boolean t = orientation >= 5;
+        int ow = t ? outH : outW, oh = t ? outW : outH;
+        for (int y = 0; y < oh; y++) {
+            int row = y * dstStride;
+            for (int x = 0; x < ow; x++) {
+                int sx, sy; // pixel of the stored (unturned) output
+                switch (orientation) {
+                    case 2 -> { sx = outW - 1 - x; sy = y; }
+                    case 3 -> { sx = outW - 1 - x; sy = outH - 1 - y; }
+                    case 4 -> { sx = x; sy = outH - 1 - y; }
+                    case 5 -> { sx = y; sy = x; }
+                    case 6 -> { sx = y; sy = outH - 1 - x; }
+                    case 7 -> { sx = outW - 1 - y; sy = outH - 1 - x; }
+                    case 8 -> { sx = outW - 1 - y; sy = x; }
+                    default -> { sx = x; sy = y; }
+                }
+                int x0 = (int) ((long) sx * srcW / outW), x1 = Math.max(x0 + 1, (int) ((long) (sx + 1) * srcW / outW));
+                int y0 = (int) ((long) sy * srcH / outH), y1 = Math.max(y0 + 1, (int) ((long) (sy + 1) * srcH / outH));
+                int r = 0, g = 0, b = 0;
+                for (int yy = y0; yy < y1; yy++) {
+                    int i = yy * stride;
+                    for (int xx = x0; xx < x1; xx++) {
+                        int p = src[i + xx];
+                        r += (p >> 16) & 0xFF; g += (p >> 8) & 0xFF; b += p & 0xFF;
+                    }
+                }
+                int n = (x1 - x0) * (y1 - y0);
+                dst.put(row + x, 0xFF000000 | (r / n) << 16 | (g / n) << 8 | (b / n));
+            }
+        }
+    }
+
+    private static int ceilDiv(int a, int b) { return (a + b - 1) / b; }
+
+    private static Image orient(Image img, int orientation) {
+        int w = (int) img.getWidth(), h = (int) img.getHeight();
+        int[] px = new int[w * h];
+        img.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getIntArgbPreInstance(), px, 0, w);
+        px = ExifReader.orient(px, w, h, orientation);
+        int ow = orientation >= 5 ? h : w, oh = orientation >= 5 ? w : h;
+        WritableImage out = new WritableImage(ow, oh);
+        out.getPixelWriter().setPixels(0, 0, ow, oh, PixelFormat.getIntArgbPreInstance(), px, 0, ow);
+        return out;
+    }
+
+    private static boolean differs(double decodedFor, double now) {
+        if (decodedFor == 0 || now == 0) return decodedFor != now;
+        return Math.abs(now - decodedFor) / decodedFor > 0.25;
+    }
+
+    private static boolean isJpeg(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
+    private static boolean isWebp(Path file) { return file.getFileName().toString().toLowerCase().endsWith(".webp"); }
+}
@@ -0,0 +1,166 @@
+package com.spatiosoft.glidewall;
+
+import com.spatiosoft.glidewall.SlideDecoder.DecodedSlide;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Decodes the next few slides in the background so a transition always starts on a fully decoded frame.
+ * <p>
+ * Decoding is delegated to a {@link SlideDecoder} on a small worker pool, so frames come out at display size
+ * rather than native resolution. Entries that are no longer upcoming, or were decoded for a noticeably smaller
+ * view, are cancelled on the next {@link #prefetch(List)} call, keeping memory bounded to roughly {@code depth}
+ * frames. Each completed entry owns one reference to its slide's pooled frame (see {@link SlideDecoder.DecodedSlide});
+ * it is released when the entry is dropped, or handed to the caller of {@link #take}.
+ */
+public class SlidePrefetcher {
+    // slide: the decoded result while the entry owns it; guarded by the prefetcher's lock
+    private static final class Entry {
+        final double width, height;
+        Future<?> future;
+        DecodedSlide slide;
+        boolean dropped;
+
+        Entry(double width, double height) { this.width = width; this.height = height; }
+    }
+
+    private final int depth;
+    private final SlideDecoder decoder;
+    private final ExecutorService pool;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile BiConsumer<Path, DecodedSlide> onReady;
+
+    public SlidePrefetcher(SlideDecoder decoder, int depth, int threads) {
+        this.decoder = decoder;
+        this.depth = Math.max(0, depth);
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> { Thread t = new Thread(r, "slide-decoder"); t.setDaemon(true); t.setPriority(Thread.NORM_PRIORITY - 1); return t; });
+    }
+
+    public int depth() { return depth; }
+
+    public SlideDecoder decoder() { return decoder; }
+
+    /** Slides served from a look-ahead decode. */
+    public long hits() { return hits.sum(); }
+
+    /** Slides that had to be decoded on demand (not prefetched, stale, or failed). */
+    public long misses() { return misses.sum(); }
+
+    /**
+     * Called on the decoder thread each time a look-ahead slide finished decoding (e.g. to pre-upload its texture).
+     * The slide is only borrowed for the call: retain it to keep it.
+     */
+    public void setOnReady(BiConsumer<Path, DecodedSlide> onReady) { this.onReady = onReady; }
+
+    /**
+     * The look-ahead slide for {@code file} if it is already decoded and still fits the view; never blocks. The
+     * slide comes with its own reference, which the caller must release.
+     */
+    public synchronized DecodedSlide peek(Path file) {
+        Entry e = entries.get(file);
+        if (e == null || e.slide == null || !fits(e)) return null;
+        return e.slide.retain();
+    }
+
+    /** Estimated pixel bytes held by completed look-ahead frames (4 bytes per pixel). */
+    public synchronized long decodedBytes() {
+        long bytes = 0;
+        for (Entry e : entries.values()) if (e.slide != null) bytes += (long) e.slide.width() * e.slide.height() * 4;
+        return bytes;
+    }
+
+    /** Makes sure the given upcoming slides (in display order) are decoding; everything else is dropped. */
+    public synchronized void prefetch(List<Path> upcoming) {
+        List<Path> wanted = upcoming.size() > depth ? upcoming.subList(0, depth) : upcoming;
+        for (Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Entry> e = it.next();
+            if (!wanted.contains(e.getKey()) || !fits(e.getValue())) { drop(e.getValue()); it.remove(); }
+        }
+        for (Path p : wanted) {
+            if (entries.containsKey(p)) continue;
+            Entry e = new Entry(decoder.targetWidth(), decoder.targetHeight());
+            e.future = pool.submit(() -> decodeAndNotify(p, e));
+            entries.put(p, e);
+        }
+    }
+
+    /**
+     * Returns the decoded slide, waiting up to {@code waitMillis} for a running prefetch and decoding in the
+     * calling thread otherwise. Must not be called on the FX thread. Returns null if the image cannot be decoded.
+     * The caller owns the returned slide.
+     */
+    public DecodedSlide take(Path file, long waitMillis) {
+        Entry entry;
+        synchronized (this) { entry = entries.remove(file); }
+        if (entry != null && fits(entry)) {
+            try {
+                entry.future.get(waitMillis, TimeUnit.MILLISECONDS);
+                DecodedSlide slide;
+                synchronized (this) { slide = entry.slide; entry.slide = null; entry.dropped = true; }
+                if (slide != null) { hits.increment(); return slide; }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                synchronized (this) { drop(entry); }
+                return null;
+            } catch (ExecutionException | TimeoutException | CancellationException ignored) {
+                synchronized (this) { drop(entry); }
+            }
+        } else if (entry != null) {
+            synchronized (this) { drop(entry); }
+        }
+        misses.increment();
+        return decoder.decode(file);
+    }
+
+    public synchronized void clear() {
+        for (Entry e : entries.values()) drop(e);
+        entries.clear();
+    }
+
+    public void shutdown() {
+        clear();
+        pool.shutdownNow();
+    }
+
+    private void decodeAndNotify(Path file, Entry entry) {
+        DecodedSlide slide = decoder.decode(file);
+        if (slide == null) return;
+        synchronized (this) {
+            if (entry.dropped) { slide.release(); return; }
+            entry.slide = slide;
+            slide.retain(); // borrowed by the callback even if the entry is dropped meanwhile
+        }
+        try {
+            BiConsumer<Path, DecodedSlide> cb = onReady;
+            if (cb != null) cb.accept(file, slide);
+        } finally {
+            slide.release();
+        }
+    }
+
+    // Caller holds the lock. A decode still running releases its result when it finishes.
+    private void drop(Entry e) {
+        e.dropped = true;
+        if (e.future != null) e.future.cancel(false);
+        if (e.slide != null) { e.slide.release(); e.slide = null; }
+    }
+
+    private boolean fits(Entry e) {
+        return decoder.fits(e.width, e.height);
+    }
+}
@@ -1,16 +1,13 @@
 package com.spatiosoft.glidewall;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import javafx.animation.Animation;
-import javafx.animation.FadeTransition;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
@@ -25,7 +22,6 @@ import javafx.stage.Window;
 import javafx.util.Duration;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
@@ -35,7 +31,8 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SlideshowController {
     @FXML private ImageView imageView;
@@ -58,36 +55,44 @@ public class SlideshowController {
     @FXML private StackPane centerPane;
     @FXML private Label placeholderLabel;
 
-    private Path rootDirectory;
-    private final List<Path> imageFiles = new ArrayList<>();
-    private final Random random = new Random();
-    private final Map<Path, Image> thumbCache = new ConcurrentHashMap<>();
+    private static final int UPLOAD_PORT = Integer.getInteger("glidewall.upload.port", 8080);
+    private static final long UPLOAD_MAX_BYTES = Long.getLong("glidewall.upload.maxMB", 25) * 1024 * 1024;
+    private static final TransitionEngine.Effect TRANSITION = TransitionEngine.Effect.parse(System.getProperty("glidewall.transition"));
+    private static final long TRANSITION_MILLIS = Long.getLong("glidewall.transition.millis", 0);
+    // Video-wall mode (--wall): every other screen gets a WallDisplay fed from the engine's play order, decoder and caches.
+    private static final boolean WALL_MODE = Boolean.getBoolean("glidewall.wall");
+    private static final boolean EXIT_AFTER_FIRST_IMAGE = Boolean.getBoolean("glidewall.startup.exitAfterFirstImage");
 
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> slideshowTask;
-    private ScheduledFuture<?> rescanTask;
+    private Path rootDirectory;
+    private final ThumbnailCache thumbCache = new ThumbnailCache(120, 90, Long.getLong("glidewall.thumbs.cacheMB", 64) * 1024 * 1024, Boolean.parseBoolean(System.getProperty("glidewall.thumbs.disk", "true")) ? AppDirs.cacheDir("thumbs") : null, Long.getLong("glidewall.thumbs.diskMB", 512) * 1024 * 1024, Integer.getInteger("glidewall.thumbs.threads", 2), Long.getLong("glidewall.thumbs.placeholderMB", 16) * 1024 * 1024);
+    private final int wallScreens = WALL_MODE ? Math.max(0, javafx.stage.Screen.getScreens().size() - 1) : 0;
+    // Off-heap frames recycled between slides (-Dglidewall.decode.framePool=false decodes to the heap): one per look-ahead
+    // slide, plus per screen its two views, a deferred preload, a pending UI update and a direct decode, plus a re-decode.
+    private final FramePool frames = Boolean.parseBoolean(System.getProperty("glidewall.decode.framePool", "true")) ? new FramePool(Integer.getInteger("glidewall.prefetch.depth", 3) + wallScreens + 5 * (1 + wallScreens) + 1) : null;
+    private final SlidePrefetcher prefetcher = new SlidePrefetcher(new SlideDecoder(Long.getLong("glidewall.decode.maxMegapixels", 16) * 1_000_000, Boolean.parseBoolean(System.getProperty("glidewall.decode.subsample", "true")), Long.getLong("glidewall.decode.subsampleAboveMegapixels", 24) * 1_000_000, frames), Integer.getInteger("glidewall.prefetch.depth", 3) + wallScreens, 2);
+    private final ImageValidator validator = new ImageValidator(Integer.getInteger("glidewall.validate.threads", Math.min(4, Runtime.getRuntime().availableProcessors())));
+    private final GlideWallMetrics metrics = new GlideWallMetrics(thumbCache, prefetcher, validator, () -> this.engine.state().imageCount());
+    // Index, play order, decoding and scheduling live in the engine; this controller only renders its events.
+    private final SlideshowEngine engine = new SlideshowEngine(prefetcher, validator, metrics, 1 + wallScreens);
+    private final UiUpdates ui = new UiUpdates();
+    private RenditionStore renditions; // created with the first upload server, so plain slideshows never touch it
+    private volatile SlideDecoder.DecodedSlide currentSlide;
+    private volatile MetricsServer metricsServer;
+    private Label metricsOverlay;
+    private Timeline metricsOverlayTimer;
 
-    private volatile boolean running = false;
-    private volatile Path lastShown;
     private boolean stageFsListenerInstalled = false;
 
-    private int currentIndex = -1;
-    private boolean shuffledMode = false;
-
     private final javafx.collections.ObservableList<Path> observableImages = javafx.collections.FXCollections.observableArrayList();
     private boolean suppressSelectionHandler = false;
 
-    private WatchService watchService;
-    private Future<?> watchTask;
-
     private Stage serverStage;
-    private Process uploaderProcess;
+    private UploadServer uploadServer;
     private Label serverPathLabel;
     private Label serverProcStatusLabel;
     private Button serverStartButton;
     private Button serverStopButton;
     private TextArea serverLogArea;
-    private ExecutorService serverExec = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "uploader-log"); t.setDaemon(true); return t; });
     // New URL + QR fields
     private Hyperlink serverUrlLink;
     private ImageView qrView;
@@ -95,23 +100,26 @@ public class SlideshowController {
     private boolean autoStartDone = false; // ensures auto-start happens only once
     private boolean userStartStopAction = false; // set true if user explicitly starts/stops to prevent auto restarts
 
-    // Cross-fade transition fields
-    private ImageView transitionOverlay; // temporary overlay for cross-fade
-    private Animation currentTransition;
-    private boolean firstImageDisplayed = false;
+    private TransitionEngine transitions;
+    private volatile List<WallDisplay> walls = List.of();
+    private double wallPixelWidth, wallPixelHeight;
 
     @FXML
     private void initialize() {
         intervalSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 3600, 5));
-        scheduler = Executors.newScheduledThreadPool(2, r -> { Thread t = new Thread(r, "slideshow-worker"); t.setDaemon(true); return t; });
+        intervalSpinner.valueProperty().addListener((obs,o,n)-> { if (n!=null) engine.setInterval(n); });
         imageView.fitWidthProperty().bind(centerPane.widthProperty());
         imageView.fitHeightProperty().unbind();
         imageView.setPreserveRatio(true);
         imageView.setSmooth(true);
-        imageView.setCache(true);
+        transitions = new TransitionEngine(centerPane, imageView, metrics, TRANSITION, TRANSITION_MILLIS, frames);
+        engine.setListener(ui);
+        var screen = javafx.stage.Screen.getPrimary();
+        engine.decoder().setTargetSize(screen.getBounds().getWidth() * screen.getOutputScaleX(), screen.getBounds().getHeight() * screen.getOutputScaleY());
         rootPane.setMinHeight(0); centerPane.setMinHeight(0); if (thumbList != null) thumbList.setMinHeight(0);
         Runnable sizeUpdater = this::updateAvailableImageHeight;
         rootPane.heightProperty().addListener((o,a,b)-> sizeUpdater.run());
+        centerPane.widthProperty().addListener((o,a,b)-> updateDecodeTarget());
         if (toolBar != null) toolBar.heightProperty().addListener((o,a,b)-> sizeUpdater.run());
         if (statusBar != null) statusBar.heightProperty().addListener((o,a,b)-> sizeUpdater.run());
         Platform.runLater(sizeUpdater);
@@ -119,14 +127,65 @@ public class SlideshowController {
             if (newScene != null) {
                 if (newScene.getWindow() instanceof Stage st) { installFullScreenListener(st); }
                 newScene.windowProperty().addListener((o, oldWin, newWin) -> { if (newWin instanceof Stage st2) installFullScreenListener(st2); });
-                newScene.setOnKeyPressed(e -> { if (e.getCode() == javafx.scene.input.KeyCode.ESCAPE) { if (newScene.getWindow() instanceof Stage st && st.isFullScreen()) { st.setFullScreen(false); e.consume(); } } });
+                newScene.setOnKeyPressed(e -> { if (e.getCode() == javafx.scene.input.KeyCode.ESCAPE) { if (newScene.getWindow() instanceof Stage st && st.isFullScreen()) { st.setFullScreen(false); e.consume(); } } else if (e.getCode() == javafx.scene.input.KeyCode.I) { toggleMetricsOverlay(); e.consume(); } });
             }
         });
         setupThumbList();
+        setupMetrics();
         Platform.runLater(this::updatePlaceholderVisibility);
         Platform.runLater(this::updateButtonStates);
     }
 
+    // JMX bean, loopback Prometheus endpoint (-Dglidewall.metrics.port, 0 disables) and the 'I' overlay.
+    // JMX and the HTTP server cost noticeable class loading, so they start on their own thread, off the path to the first frame.
+    private void setupMetrics() {
+        Thread.ofPlatform().daemon().name("metrics-init").start(() -> {
+            metrics.registerMBean();
+            int port = Integer.getInteger("glidewall.metrics.port", 9469);
+            if (port > 0) {
+                try { metricsServer = MetricsServer.start(metrics, port); } catch (IOException e) { status("Metrics endpoint unavailable on port " + port + ": " + e.getMessage()); }
+            }
+        });
+        metricsOverlay = new Label();
+        metricsOverlay.setMouseTransparent(true);
+        metricsOverlay.setVisible(false);
+        metricsOverlay.setStyle("-fx-background-color: rgba(0,0,0,0.6); -fx-text-fill: #cfc; -fx-font-family: 'monospace'; -fx-font-size: 12; -fx-padding: 6;");
+        StackPane.setAlignment(metricsOverlay, Pos.TOP_LEFT);
+        centerPane.getChildren().add(metricsOverlay);
+        metricsOverlayTimer = new Timeline(new KeyFrame(Duration.seconds(1), e -> metricsOverlay.setText(metrics.overlayText())));
+        metricsOverlayTimer.setCycleCount(Animation.INDEFINITE);
+        if (Boolean.getBoolean("glidewall.metrics.overlay")) toggleMetricsOverlay();
+    }
+
+    /**
+     * Video-wall mode: opens a full-screen {@link WallDisplay} on every screen other than the one holding
+     * {@code main}, which goes full screen as well. All screens share the engine's index, decode pool and caches.
+     */
+    public void startWall(Stage main) {
+        List<javafx.stage.Screen> own = javafx.stage.Screen.getScreensForRectangle(main.getX(), main.getY(), Math.max(1, main.getWidth()), Math.max(1, main.getHeight()));
+        javafx.stage.Screen home = own.isEmpty() ? javafx.stage.Screen.getPrimary() : own.get(0);
+        List<WallDisplay> opened = new ArrayList<>();
+        for (javafx.stage.Screen s : javafx.stage.Screen.getScreens()) {
+            if (s.equals(home)) continue;
+            WallDisplay w = new WallDisplay(s, main, metrics, TRANSITION, TRANSITION_MILLIS, frames);
+            w.open();
+            opened.add(w);
+            wallPixelWidth = Math.max(wallPixelWidth, w.pixelWidth());
+            wallPixelHeight = Math.max(wallPixelHeight, w.pixelHeight());
+        }
+        walls = List.copyOf(opened);
+        if (!main.isFullScreen()) onToggleFullscreen();
+        updateDecodeTarget();
+        engine.setScreens(opened.size() + 1);
+        status(opened.isEmpty() ? "Video wall: only one screen found" : "Video wall: " + (opened.size() + 1) + " screens");
+    }
+
+    private void toggleMetricsOverlay() {
+        boolean show = !metricsOverlay.isVisible();
+        metricsOverlay.setVisible(show);
+        if (show) { metricsOverlay.setText(metrics.overlayText()); metricsOverlayTimer.play(); } else metricsOverlayTimer.stop();
+    }
+
     private void installFullScreenListener(Stage stage) {
         if (stageFsListenerInstalled) return;
         stage.fullScreenProperty().addListener((o, was, isNow) -> applyFullscreenUI(isNow));
@@ -136,15 +195,23 @@ public class SlideshowController {
     private void setupThumbList() {
         if (thumbList == null) return;
         thumbList.setItems(observableImages);
+        thumbList.setFixedCellSize(84); // no per-cell measuring: scrolling cost stays flat with 100k entries
+        // Cells only ask for what they show: a memory hit, else the low-res placeholder while a prioritized load runs.
+        // A reused cell cancels its previous request, so fast scrolling does not queue decodes for rows long gone.
         thumbList.setCellFactory(list -> new ListCell<>() {
             private final ImageView iv = new ImageView(); { iv.setFitWidth(100); iv.setFitHeight(75); iv.setPreserveRatio(true); }
+            private ThumbnailCache.Request pending;
             @Override protected void updateItem(Path item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) { setGraphic(null); setText(null); }
-                else { Image thumb = thumbCache.computeIfAbsent(item, p -> new Image(p.toUri().toString(), 120,90,true,true,true)); iv.setImage(thumb); setGraphic(iv); setText(item.getFileName().toString()); }
+                if (pending != null) { pending.cancel(); pending = null; }
+                if (empty || item == null) { iv.setImage(null); setGraphic(null); setText(null); return; }
+                setText(item.getFileName().toString()); setGraphic(iv);
+                Image thumb = thumbCache.peek(item);
+                iv.setImage(thumb != null ? thumb : thumbCache.placeholder(item));
+                if (thumb == null) pending = thumbCache.request(item, img -> Platform.runLater(() -> { if (item.equals(getItem())) iv.setImage(img); }));
             }
         });
-        thumbList.getSelectionModel().selectedItemProperty().addListener((obs,o,sel)-> { if (sel!=null && !suppressSelectionHandler) showImage(sel); });
+        thumbList.getSelectionModel().selectedItemProperty().addListener((obs,o,sel)-> { if (sel!=null && !suppressSelectionHandler) engine.jump(sel); });
     }
 
     @FXML private void onOpenServerWindow() {
@@ -180,7 +247,7 @@ public class SlideshowController {
         VBox qrBox = new VBox(4, new Label("QR Code:"), qrView);
         qrBox.setPadding(new Insets(4,0,0,0));
         HBox topRow = new HBox(24, new VBox(8,
-                new Label("Python uploader for the selected slideshow folder."),
+                new Label("Built-in uploader for the selected slideshow folder."),
                 new Label("Target Folder:"), serverPathLabel,
                 buttonRow,
                 urlRow
@@ -202,16 +269,13 @@ public class SlideshowController {
         if (serverUrlLink == null) return;
         String url = buildServerUrl();
         serverUrlLink.setText(url);
-        if (uploaderProcess != null && uploaderProcess.isAlive()) {
-            Image qr = generateQrImage(url, 260);
-            if (qr != null) qrView.setImage(qr);
-        } else {
-            qrView.setImage(null);
-        }
+        qrView.setImage(null);
+        if (uploadServer == null) return;
+        CompletableFuture.supplyAsync(() -> generateQrImage(url, 260)).thenAccept(qr -> Platform.runLater(() -> { if (qr != null && url.equals(serverUrlLink.getText())) qrView.setImage(qr); }));
     }
 
     private String buildServerUrl() {
-        int port = 8080; // fixed for now
+        int port = uploadServer != null ? uploadServer.port() : UPLOAD_PORT;
         String host = "localhost";
         try {
             // Prefer a site-local IPv4 address for mobile scanning
@@ -231,20 +295,9 @@ public class SlideshowController {
 
     private Image generateQrImage(String text, int size) {
         try {
-            Map<EncodeHintType,Object> hints = new EnumMap<>(EncodeHintType.class);
-            hints.put(EncodeHintType.MARGIN, 1);
-            var writer = new QRCodeWriter();
-            BitMatrix matrix = writer.encode(text, BarcodeFormat.QR_CODE, size, size, hints);
-            BufferedImage img = new BufferedImage(matrix.getWidth(), matrix.getHeight(), BufferedImage.TYPE_INT_RGB);
-            for (int y=0; y<matrix.getHeight(); y++) {
-                for (int x=0; x<matrix.getWidth(); x++) {
-                    int v = matrix.get(x,y) ? 0x000000 : 0xFFFFFF;
-                    img.setRGB(x,y, v);
-                }
-            }
-            return SwingFXUtils.toFXImage(img, null);
-        } catch (WriterException e) {
-            appendServerLog("QR generation failed: " + e.getMessage() + "\n");
+            return QrCode.render(text, size);
+        } catch (Exception e) {
+            Platform.runLater(() -> appendServerLog("QR generation failed: " + e.getMessage() + "\n"));
             return null;
         }
     }
@@ -261,7 +314,7 @@ public class SlideshowController {
 
     private void refreshServerUIState() {
         if (serverPathLabel != null) serverPathLabel.setText(getUploaderTargetText());
-        boolean runningProc = uploaderProcess != null && uploaderProcess.isAlive();
+        boolean runningProc = uploadServer != null;
         if (serverStartButton != null) serverStartButton.setDisable(rootDirectory == null || runningProc);
         if (serverStopButton != null) serverStopButton.setDisable(!runningProc);
         if (serverProcStatusLabel != null) serverProcStatusLabel.setText(runningProc ? "Running" : "Stopped");
@@ -269,65 +322,27 @@ public class SlideshowController {
     }
 
     private void startUploader() {
-        if (uploaderProcess != null && uploaderProcess.isAlive()) return;
+        if (uploadServer != null) return;
         if (rootDirectory == null) {
             appendServerLog("Select a folder first before starting the server.\n");
             return;
         }
-        // Determine python executable (simple heuristic)
-        String python = System.getProperty("os.name").toLowerCase().contains("win") ? "python" : "python3";
-        Path projectDir = Paths.get(System.getProperty("user.dir"));
-        Path script = projectDir.resolve("uploader").resolve("upload_server.py");
-        if (!Files.exists(script)) {
-            appendServerLog("Uploader script not found: " + script + "\n");
-            return;
-        }
-        List<String> cmd = new ArrayList<>();
-        cmd.add(python);
-        cmd.add(script.toAbsolutePath().toString());
-        cmd.add("--folder");
-        cmd.add(rootDirectory.toAbsolutePath().toString());
-        cmd.add("--port");
-        cmd.add("8080"); // fixed port for now
-        ProcessBuilder pb = new ProcessBuilder(cmd);
-        pb.directory(projectDir.toFile());
-        pb.redirectErrorStream(true);
         try {
-            uploaderProcess = pb.start();
-            appendServerLog("Started uploader process PID=" + uploaderProcess.pid() + "\n");
-            // consume output
-            serverExec.submit(() -> {
-                try (var reader = new java.io.BufferedReader(new java.io.InputStreamReader(uploaderProcess.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        final String ln = line;
-                        Platform.runLater(() -> appendServerLog(ln + "\n"));
-                    }
-                } catch (IOException ignored) {}
-                Platform.runLater(() -> {
-                    appendServerLog("Uploader process ended.\n");
-                    refreshServerUIState();
-                });
-            });
+            if (renditions == null) renditions = new RenditionStore(AppDirs.cacheDir("renditions"), Long.getLong("glidewall.renditions.diskMB", 1024) * 1024 * 1024, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            renditions.setExportRoot(RenditionExporter.isExport(rootDirectory) ? rootDirectory : null);
+            uploadServer = UploadServer.start(rootDirectory, UPLOAD_PORT, UPLOAD_MAX_BYTES, renditions, engine::uploaded, line -> Platform.runLater(() -> appendServerLog(line + "\n")));
         } catch (IOException e) {
             appendServerLog("Failed to start uploader: " + e.getMessage() + "\n");
         }
         refreshServerUIState();
-        updateServerUrlAndQR();
     }
 
     private void stopUploader() {
-        if (uploaderProcess != null && uploaderProcess.isAlive()) {
-            uploaderProcess.destroy();
-            appendServerLog("Stopping uploader...\n");
-            try {
-                if (!uploaderProcess.waitFor(2, java.util.concurrent.TimeUnit.SECONDS)) {
-                    uploaderProcess.destroyForcibly();
-                }
-            } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+        if (uploadServer != null) {
+            uploadServer.close();
+            uploadServer = null;
+            appendServerLog("Uploader stopped.\n");
         }
-        uploaderProcess = null;
-        updateServerUrlAndQR();
         refreshServerUIState();
     }
 
@@ -348,12 +363,13 @@ public class SlideshowController {
     }
 
     private void updateButtonStates() {
+        SlideshowEngine.State s = engine.state();
         boolean hasFolder = rootDirectory != null;
-        boolean isRunning = running;
-        if (startButton != null) startButton.setDisable(!hasFolder || isRunning || imageFiles.isEmpty());
+        boolean isRunning = s.running();
+        if (startButton != null) startButton.setDisable(!hasFolder || isRunning || s.imageCount() == 0);
         if (stopButton != null) stopButton.setDisable(!hasFolder || !isRunning);
         if (refreshButton != null) refreshButton.setDisable(!hasFolder);
-        if (shuffleButton != null) shuffleButton.setDisable(!hasFolder || imageFiles.size() < 2);
+        if (shuffleButton != null) shuffleButton.setDisable(!hasFolder || s.imageCount() < 2);
         if (fullScreenButton != null) fullScreenButton.setDisable(!hasFolder);
         if (serverButton != null) serverButton.setDisable(!hasFolder);
         if (aboutButton != null) aboutButton.setDisable(false); // always enabled now
@@ -361,17 +377,11 @@ public class SlideshowController {
 
     private void attemptAutoStart() {
         // Auto-start only if: not running yet, not already auto-started, user hasn't manually intervened, we have a folder and at least one image.
-        if (!running && !autoStartDone && !userStartStopAction && rootDirectory != null) {
-            boolean hasImages; synchronized (this) { hasImages = !imageFiles.isEmpty(); }
-            if (hasImages) {
-                autoStartDone = true; // mark now to avoid race double-start
-                Platform.runLater(() -> {
-                    if (!running) {
-                        onStart(); // onStart will set running and schedule tasks
-                        status("Auto-started slideshow");
-                    }
-                });
-            }
+        SlideshowEngine.State s = engine.state();
+        if (!s.running() && !autoStartDone && !userStartStopAction && rootDirectory != null && s.imageCount() > 0) {
+            autoStartDone = true;
+            onStart(); // onStart will set running and schedule tasks
+            status("Auto-started slideshow");
         }
     }
 
@@ -379,113 +389,154 @@ public class SlideshowController {
         DirectoryChooser chooser = new DirectoryChooser(); chooser.setTitle("Select Image Folder");
         Window w = imageView.getScene()!=null? imageView.getScene().getWindow(): null;
         Path selected = null; try { var dir = chooser.showDialog(w); if (dir!=null) selected = dir.toPath(); } catch (Exception ignored) {}
-        if (selected!=null) {
-            stopWatcher();
-            rootDirectory = selected; status("Selected: " + rootDirectory);
-            // Reset auto-start flags for new folder selection
-            autoStartDone = false; userStartStopAction = false; running = false; cancelTask(slideshowTask); cancelTask(rescanTask);
-            rebuildFileList();
-            startWatcher(); refreshServerUIState(); updateButtonStates();
-            // attempt auto-start in case images were already present and rebuild finished synchronously
-            attemptAutoStart();
-        }
+        if (selected!=null) openFolder(selected);
     }
 
-    @FXML private void onStart() { if (running) return; if (rootDirectory==null) { status("Choose a folder first"); return; } running=true; userStartStopAction = true; scheduleRescan(); scheduleSlideshow(); status("Running"); updateButtonStates(); }
-    @FXML private void onStop() { if (!running) { updatePlaceholderVisibility(); return; } running=false; userStartStopAction = true; cancelTask(slideshowTask); cancelTask(rescanTask); status("Stopped"); updatePlaceholderVisibility(); updateButtonStates(); }
-
-    private void scheduleSlideshow() { cancelTask(slideshowTask); int interval = intervalSpinner.getValue(); slideshowTask = scheduler.scheduleAtFixedRate(this::showNextImage,0,interval,TimeUnit.SECONDS); intervalSpinner.valueProperty().addListener((obs,o,n)-> { if (running && n!=null && !n.equals(o)) scheduleSlideshow(); }); }
-    private void scheduleRescan() { cancelTask(rescanTask); rescanTask = scheduler.scheduleAtFixedRate(this::rebuildFileList,0,10,TimeUnit.SECONDS); }
-
-    private void showNextImage() { if (!running) return; Path file; synchronized (this) { if (imageFiles.isEmpty()) return; if (currentIndex <0 || currentIndex>= imageFiles.size()) currentIndex = -1; currentIndex = (currentIndex+1) % imageFiles.size(); file = imageFiles.get(currentIndex); lastShown = file; } showImage(file); }
-
-    private void showImage(Path file) { try { Image img = new Image(file.toUri().toString(), true); Platform.runLater(()-> { crossFadeToImage(img); if (statusLabel!=null) statusLabel.setText(String.format("Showing %s (%d images)", file.getFileName(), imageFiles.size())); if (thumbList!=null && !Objects.equals(thumbList.getSelectionModel().getSelectedItem(), file)) { suppressSelectionHandler=true; thumbList.getSelectionModel().select(file); thumbList.scrollTo(file); suppressSelectionHandler=false; } synchronized (this) { currentIndex = imageFiles.indexOf(file); lastShown = file; } updatePlaceholderVisibility(); }); } catch (Exception ignored) {} }
+    /** Switches the slideshow to {@code selected} (also used for {@code --folder} on the command line). FX thread. */
+    public void openFolder(Path selected) {
+        if (!Files.isDirectory(selected)) { status("Not a folder: " + selected); return; }
+        rootDirectory = selected; status("Selected: " + rootDirectory);
+        // Reset auto-start flags for new folder selection
+        autoStartDone = false; userStartStopAction = false;
+        ui.clear(); observableImages.clear(); thumbCache.clear();
+        thumbCache.setExportRoot(RenditionExporter.isExport(selected) ? selected : null);
+        // initial load runs off the FX thread; the auto-start is attempted once the first images arrive
+        engine.open(selected);
+        if (uploadServer != null) { stopUploader(); startUploader(); } refreshServerUIState(); updateButtonStates();
+    }
 
-    private void crossFadeToImage(Image newImage) {
-        if (imageView == null) return;
-        // If first image, no animation.
-        if (!firstImageDisplayed || imageView.getImage() == null) {
-            imageView.setImage(newImage);
-            firstImageDisplayed = true;
-            return;
+    @FXML private void onStart() { if (engine.state().running()) return; if (rootDirectory==null) { status("Choose a folder first"); return; } userStartStopAction = true; engine.start(intervalSpinner.getValue()); status("Running"); updateButtonStates(); }
+    @FXML private void onStop() { if (!engine.state().running()) { updatePlaceholderVisibility(); return; } userStartStopAction = true; engine.stop(); status("Stopped"); updatePlaceholderVisibility(); updateButtonStates(); }
+
+    /**
+     * Engine events are only recorded here (latest wins per screen), and a single FX runnable applies everything
+     * that accumulated since the last one: slides, preloads, list changes, one status text, and one read of the
+     * engine state for counters and buttons. Bursts of events therefore cost one UI update, not one per event.
+     * Slides replaced before they were applied are released right away; applied ones once the views hold them.
+     */
+    private final class UiUpdates implements SlideshowEngine.Listener {
+        private record Shown(SlideDecoder.DecodedSlide slide, long deadline) {}
+        private record Sharper(SlideDecoder.DecodedSlide shown, SlideDecoder.DecodedSlide sharper) {}
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ConcurrentHashMap<Integer, Shown> slides = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, SlideDecoder.DecodedSlide> preloads = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<IndexDiff> changes = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Sharper> sharper = new AtomicReference<>();
+        private final AtomicReference<String> status = new AtomicReference<>();
+
+        @Override public void slide(int screen, SlideDecoder.DecodedSlide slide, long deadline) {
+            Shown replaced = slides.put(screen, new Shown(slide, deadline));
+            if (replaced != null) replaced.slide().release();
+            if (screen == 0) status.set(String.format("Showing %s (%d images)", slide.file().getFileName(), engine.state().imageCount()));
+            request();
         }
-        // If a transition is in progress, finalize it immediately.
-        if (currentTransition != null && currentTransition.getStatus() == Animation.Status.RUNNING) {
-            currentTransition.stop();
-            if (transitionOverlay != null) {
-                imageView.setOpacity(1.0);
-                imageView.setImage(transitionOverlay.getImage());
-                ((Pane)transitionOverlay.getParent()).getChildren().remove(transitionOverlay);
-                transitionOverlay = null;
+        @Override public void preload(int screen, SlideDecoder.DecodedSlide slide) { SlideDecoder.DecodedSlide replaced = preloads.put(screen, slide); if (replaced != null) replaced.release(); request(); }
+        @Override public void sharper(SlideDecoder.DecodedSlide shown, SlideDecoder.DecodedSlide better) { Sharper replaced = sharper.getAndSet(new Sharper(shown, better)); if (replaced != null) replaced.sharper().release(); request(); }
+        @Override public void libraryChanged(IndexDiff diff, boolean initial) { changes.add(diff); request(); }
+        @Override public void stateChanged(SlideshowEngine.State state) { request(); }
+        @Override public void status(String message) { status.set(message); request(); }
+
+        /** Drops what is pending for a folder that is being replaced. FX thread. */
+        void clear() {
+            for (Integer screen : slides.keySet()) { Shown s = slides.remove(screen); if (s != null) s.slide().release(); }
+            for (Integer screen : preloads.keySet()) { SlideDecoder.DecodedSlide p = preloads.remove(screen); if (p != null) p.release(); }
+            Sharper sh = sharper.getAndSet(null); if (sh != null) sh.sharper().release();
+            changes.clear();
+        }
+
+        private void request() { if (scheduled.compareAndSet(false, true)) Platform.runLater(this::apply); }
+
+        private void apply() {
+            scheduled.set(false); // events from here on schedule the next update
+            boolean libraryChanged = false;
+            for (IndexDiff d; (d = changes.poll()) != null; ) {
+                if (!d.removed().isEmpty()) observableImages.removeAll(new HashSet<>(d.removed()));
+                observableImages.addAll(d.added());
+                for (Path p : d.removed()) thumbCache.remove(p); for (Path p : d.modified()) thumbCache.remove(p);
+                if (renditions != null) renditions.remove(d.removed());
+                libraryChanged = true;
             }
+            for (Integer screen : slides.keySet()) {
+                Shown shown = slides.remove(screen);
+                if (shown != null) show(screen, shown.slide(), shown.deadline());
+            }
+            for (Integer screen : preloads.keySet()) {
+                SlideDecoder.DecodedSlide next = preloads.remove(screen);
+                if (next == null) continue;
+                if (screen == 0) transitions.preload(next.image());
+                else if (screen - 1 < walls.size()) walls.get(screen - 1).preload(next.image());
+                next.release();
+            }
+            Sharper sh = sharper.getAndSet(null);
+            if (sh != null && currentSlide == sh.shown()) {
+                currentSlide = sh.sharper();
+                metrics.currentImage(sh.sharper().width(), sh.sharper().height());
+                transitions.replace(sh.shown().image(), sh.sharper().image());
+            }
+            if (sh != null) sh.sharper().release();
+            String msg = status.getAndSet(null);
+            if (msg != null && statusLabel != null) statusLabel.setText(msg);
+            if (fileCountLabel != null) fileCountLabel.setText(String.valueOf(engine.state().imageCount()));
+            updatePlaceholderVisibility(); updateButtonStates();
+            if (libraryChanged) attemptAutoStart();
         }
-        // Prepare overlay with the new image.
-        transitionOverlay = new ImageView(newImage);
-        transitionOverlay.setPreserveRatio(true);
-        transitionOverlay.setSmooth(true);
-        transitionOverlay.setCache(true);
-        // Mirror sizing bindings of base imageView.
-        transitionOverlay.fitWidthProperty().bind(imageView.fitWidthProperty());
-        transitionOverlay.fitHeightProperty().bind(imageView.fitHeightProperty());
-        transitionOverlay.setOpacity(0.0);
-        if (centerPane != null) {
-            centerPane.getChildren().add(transitionOverlay);
-        } else if (imageView.getParent() instanceof Pane p) {
-            p.getChildren().add(transitionOverlay);
+
+        // deadline: System.nanoTime() at which the slide was due; the time until its first frame is recorded as slide latency.
+        private void show(int screen, SlideDecoder.DecodedSlide slide, long deadline) {
+            if (screen > 0) { if (screen - 1 < walls.size()) walls.get(screen - 1).show(slide.image()); slide.release(); return; }
+            currentSlide = slide; transitions.show(slide.image()); slide.release(); recordFirstFrame(deadline); metrics.currentImage(slide.width(), slide.height());
+            Path file = slide.file();
+            if (thumbList!=null && !Objects.equals(thumbList.getSelectionModel().getSelectedItem(), file)) { suppressSelectionHandler=true; thumbList.getSelectionModel().select(file); thumbList.scrollTo(file); suppressSelectionHandler=false; }
         }
-        // Fade out current imageView, fade in overlay then swap.
-        FadeTransition fadeOut = new FadeTransition(Duration.millis(550), imageView);
-        fadeOut.setFromValue(1.0);
-        fadeOut.setToValue(0.0);
-        FadeTransition fadeIn = new FadeTransition(Duration.millis(550), transitionOverlay);
-        fadeIn.setFromValue(0.0);
-        fadeIn.setToValue(1.0);
-        fadeIn.setOnFinished(e -> {
-            // Swap image into base view and cleanup overlay.
-            imageView.setImage(newImage);
-            imageView.setOpacity(1.0);
-            if (transitionOverlay != null) {
-                transitionOverlay.fitWidthProperty().unbind();
-                transitionOverlay.fitHeightProperty().unbind();
-                if (transitionOverlay.getParent() instanceof Pane p2) {
-                    p2.getChildren().remove(transitionOverlay);
+    }
+
+    // The slide's first frame is drawn in the pulse after it was set; an AnimationTimer fires at the start of that pulse.
+    private void recordFirstFrame(long deadline) {
+        new AnimationTimer() {
+            @Override public void handle(long now) {
+                stop();
+                metrics.slideShown(System.nanoTime() - deadline);
+                long startup = metrics.firstImageShown();
+                // training / timing runs: report and quit once the first image is up, so -XX:ArchiveClassesAtExit
+                // captures exactly the startup classes; normal launches only export it as a metric
+                if (startup >= 0 && EXIT_AFTER_FIRST_IMAGE) {
+                    System.out.printf("GlideWall: first image %d ms after launch (target %d ms)%n", startup, GlideWallMetrics.STARTUP_TARGET_MILLIS);
+                    Platform.exit();
                 }
-                transitionOverlay = null;
             }
-            currentTransition = null;
-        });
-        // Start both transitions.
-        fadeOut.play();
-        fadeIn.play();
-        currentTransition = fadeIn; // track primary (fadeIn) for cancellation logic
+        }.start();
     }
 
-    private void rebuildFileList() { if (rootDirectory==null) { Platform.runLater(this::updatePlaceholderVisibility); return; } List<Path> oldList; synchronized (this) { oldList = new ArrayList<>(imageFiles); } Set<Path> oldSet = new HashSet<>(oldList); try (Stream<Path> stream = Files.walk(rootDirectory)) { List<Path> discovered = stream.filter(Files::isRegularFile).filter(this::isImageFile).collect(java.util.stream.Collectors.toCollection(ArrayList::new)); List<Path> added = new ArrayList<>(); for (Path p: discovered) if (!oldSet.contains(p)) added.add(p); boolean anyAdded = !added.isEmpty(); boolean anyRemoved = oldList.size() > discovered.size(); List<Path> finalOrder; if (anyAdded) { finalOrder = new ArrayList<>(discovered); Collections.shuffle(finalOrder, random); shuffledMode = true; } else if (shuffledMode) { finalOrder = new ArrayList<>(); for (Path p: oldList) if (discovered.contains(p)) finalOrder.add(p); } else { finalOrder = new ArrayList<>(discovered); Collections.sort(finalOrder); }
-        synchronized (this) { imageFiles.clear(); imageFiles.addAll(finalOrder); if (lastShown!=null) { int idx = imageFiles.indexOf(lastShown); currentIndex = idx>=0? idx : -1; } else currentIndex = -1; }
-        Platform.runLater(()-> { observableImages.setAll(finalOrder); thumbCache.keySet().removeIf(p-> !imageFiles.contains(p)); if (fileCountLabel!=null) fileCountLabel.setText(String.valueOf(finalOrder.size())); if (anyAdded) status(String.format("New images: %d (auto-reshuffled)", added.size())); else if (anyRemoved) status("Images removed (list updated)"); updatePlaceholderVisibility(); updateButtonStates(); attemptAutoStart(); }); } catch (IOException ignored) { Platform.runLater(this::updatePlaceholderVisibility); } }
-
-    private void startWatcher() { if (rootDirectory==null) return; try { watchService = FileSystems.getDefault().newWatchService(); registerAll(rootDirectory); watchTask = scheduler.submit(this::processWatchEvents); } catch (IOException e) { status("Watcher error: " + e.getMessage()); } }
-    private void registerAll(Path start) throws IOException { try (Stream<Path> dirs = Files.walk(start)) { dirs.filter(Files::isDirectory).forEach(dir -> { try { dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY); } catch (IOException ignored) {} }); } }
-    private void processWatchEvents() { while (watchService!=null && !Thread.currentThread().isInterrupted()) { WatchKey key; try { key = watchService.take(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; } catch (ClosedWatchServiceException cwse) { break; } Path dir = (Path) key.watchable(); boolean refreshNeeded = false; for (WatchEvent<?> event: key.pollEvents()) { WatchEvent.Kind<?> kind = event.kind(); if (kind == StandardWatchEventKinds.OVERFLOW) continue; Path name = (Path) event.context(); Path child = dir.resolve(name); if (kind == StandardWatchEventKinds.ENTRY_CREATE) { if (Files.isDirectory(child)) { try { registerAll(child); } catch (IOException ignored) {} refreshNeeded = true; } else if (isImageFile(child)) refreshNeeded = true; } else if (kind == StandardWatchEventKinds.ENTRY_DELETE || kind == StandardWatchEventKinds.ENTRY_MODIFY) { if (Files.isDirectory(child) || isImageFile(child)) refreshNeeded = true; } } boolean valid = key.reset(); if (refreshNeeded) rebuildFileList(); if (!valid) rebuildFileList(); } }
-    private void stopWatcher() { if (watchTask!=null) { watchTask.cancel(true); watchTask=null; } if (watchService!=null) { try { watchService.close(); } catch (IOException ignored) {} watchService=null; } }
+    private void updateDecodeTarget() {
+        if (centerPane == null) return;
+        double scale = 1.0;
+        if (centerPane.getScene()!=null && centerPane.getScene().getWindow()!=null) scale = Math.max(centerPane.getScene().getWindow().getOutputScaleX(), centerPane.getScene().getWindow().getOutputScaleY());
+        if (centerPane.getWidth() <= 0 || imageView.getFitHeight() <= 0) return; // not laid out yet: keep the screen-sized default
+        engine.decoder().setTargetSize(Math.max(wallPixelWidth, Math.ceil(centerPane.getWidth() * scale)), Math.max(wallPixelHeight, Math.ceil(imageView.getFitHeight() * scale)));
+        SlideDecoder.DecodedSlide shown = currentSlide;
+        if (shown != null) engine.redecodeLater(shown);
+    }
 
-    @FXML private void onShuffle() { synchronized (this) { if (imageFiles.isEmpty()) return; Collections.shuffle(imageFiles, random); shuffledMode = true; if (lastShown!=null) currentIndex = imageFiles.indexOf(lastShown); else currentIndex = -1; } Platform.runLater(()-> { observableImages.setAll(new ArrayList<>(imageFiles)); status("Shuffled"); }); }
+    @FXML private void onShuffle() { engine.shuffle(); }
 
-    @FXML private void onAbout() { Platform.runLater(() -> { Alert alert = new Alert(Alert.AlertType.INFORMATION); alert.setTitle("About GlideWall"); alert.setHeaderText("GlideWall – Random / Sequential Image Slideshow"); StringBuilder sb = new StringBuilder(); sb.append("GlideWall lets you display all images inside a chosen folder and its subfolders as an auto-updating slideshow.\n\n") .append("Key Features:\n") .append(" • Choose Folder: pick the root directory to scan recursively.\n") .append(" • Auto Detection: newly added or removed images are detected automatically (file watcher + periodic rescan).\n") .append(" • Interval: set seconds between slides (spinner).\n") .append(" • Start / Stop: control the slideshow playback.\n") .append(" • Sequential Loop: images advance in order (or shuffled order if shuffle used).\n") .append(" • Shuffle: randomize current list; new additions trigger auto-reshuffle.\n") .append(" • Thumbnails: left panel shows all images; click to jump instantly.\n") .append(" • Fullscreen: toggle with the button; press ESC to exit; UI & list hide in fullscreen.\n") .append(" • Status Bar: shows total file count and currently displayed image.\n") .append(" • Manual Refresh: force rebuild of the list.\n\n") .append("Usage Tips:\n") .append("1. Click 'Choose Folder' first.\n") .append("2. Adjust the interval if desired.\n") .append("3. Press Start; use Shuffle any time.\n") .append("4. Add images to the folder tree – they appear automatically and reshuffle if new.\n") .append("5. Use Fullscreen for a clean display (ESC to exit).\n\n") .append("License: AGPL v3 – strong copyleft for network services.\n") .append("Developed with assistance from AI tooling.\n\n") .append("Open the license URL below for full terms."); TextArea ta = new TextArea(sb.toString()); ta.setEditable(false); ta.setWrapText(true); ta.setPrefRowCount(18); Hyperlink link = new Hyperlink("https://www.gnu.org/licenses/agpl-3.0.html"); link.setOnAction(e -> { try { java.awt.Desktop.getDesktop().browse(java.net.URI.create(link.getText())); } catch (Exception ignored) {} }); VBox box = new VBox(8, ta, link); box.setPrefWidth(640); alert.getDialogPane().setContent(box); alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE); alert.showAndWait(); }); }
+    @FXML private void onAbout() { Platform.runLater(() -> { Alert alert = new Alert(Alert.AlertType.INFORMATION); alert.setTitle("About GlideWall"); alert.setHeaderText("GlideWall – Random / Sequential Image Slideshow"); StringBuilder sb = new StringBuilder(); sb.append("GlideWall lets you display all images inside a chosen folder and its subfolders as an auto-updating slideshow.\n\n") .append("Key Features:\n") .append(" • Choose Folder: pick the root directory to scan recursively.\n") .append(" • Auto Detection: newly added or removed images are detected automatically (file watcher + periodic rescan).\n") .append(" • Interval: set seconds between slides (spinner).\n") .append(" • Start / Stop: control the slideshow playback.\n") .append(" • Shuffled Cycles: every image is shown once per cycle, in random order, before a new cycle starts.\n") .append(" • Shuffle: start a fresh random cycle; new images are shown next, then join the cycle.\n") .append(" • Thumbnails: left panel shows all images; click to jump instantly.\n") .append(" • Fullscreen: toggle with the button; press ESC to exit; UI & list hide in fullscreen.\n") .append(" • Status Bar: shows total file count and currently displayed image.\n") .append(" • Manual Refresh: force rebuild of the list.\n\n") .append("Usage Tips:\n") .append("1. Click 'Choose Folder' first.\n") .append("2. Adjust the interval if desired.\n") .append("3. Press Start; use Shuffle any time.\n") .append("4. Add images to the folder tree – they appear automatically and are shown next.\n") .append("5. Use Fullscreen for a clean display (ESC to exit).\n\n") .append("License: AGPL v3 – strong copyleft for network services.\n") .append("Developed with assistance from AI tooling.\n\n") .append("Open the license URL below for full terms."); TextArea ta = new TextArea(sb.toString()); ta.setEditable(false); ta.setWrapText(true); ta.setPrefRowCount(18); Hyperlink link = new Hyperlink("https://www.gnu.org/licenses/agpl-3.0.html"); link.setOnAction(e -> { try { java.awt.Desktop.getDesktop().browse(java.net.URI.create(link.getText())); } catch (Exception ignored) {} }); VBox box = new VBox(8, ta, link); box.setPrefWidth(640); alert.getDialogPane().setContent(box); alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE); alert.showAndWait(); }); }
 
-    private boolean isImageFile(Path p) { String name = p.getFileName().toString().toLowerCase(); return name.endsWith(".jpg")|| name.endsWith(".jpeg")|| name.endsWith(".png")|| name.endsWith(".gif")|| name.endsWith(".bmp")|| name.endsWith(".webp"); }
-    private void status(String msg) { Platform.runLater(() -> statusLabel.setText(msg)); }
-    private void cancelTask(ScheduledFuture<?> task) { if (task!=null) task.cancel(false); }
+    private void status(String msg) { ui.status(msg); }
     @FXML private void onToggleFullscreen() { if (imageView.getScene()==null) return; Stage stage = (Stage) imageView.getScene().getWindow(); boolean newState = !stage.isFullScreen(); if (newState) { applyFullscreenUI(true); stage.setFullScreenExitHint(""); } else applyFullscreenUI(false); stage.setFullScreen(newState); }
     private void applyFullscreenUI(boolean full) { Platform.runLater(()-> { if (fullScreenButton!=null) fullScreenButton.setText(full? "Windowed":"Fullscreen"); if (toolBar!=null){ toolBar.setVisible(!full); toolBar.setManaged(!full);} if (thumbList!=null){ thumbList.setVisible(!full); thumbList.setManaged(!full);} if (statusBar!=null){ statusBar.setVisible(!full); statusBar.setManaged(!full);} if (rootPane!=null) rootPane.setStyle("-fx-background-color: black;"); updateAvailableImageHeight(); }); }
     public void shutdown() {
         onStop();
-        stopWatcher();
         stopUploader();
-        if (scheduler!=null) scheduler.shutdownNow();
-        if (serverExec!=null) serverExec.shutdownNow();
+        engine.shutdown();
+        thumbCache.shutdown();
+        if (renditions != null) renditions.shutdown();
+        for (WallDisplay w : walls) w.close();
+        if (metricsServer!=null) metricsServer.close();
+        if (metricsOverlayTimer!=null) metricsOverlayTimer.stop();
+        metrics.unregisterMBean();
     }
-    @FXML private void onManualRefresh() { rebuildFileList(); status("Refreshed"); }
-    private void updateAvailableImageHeight() { if (rootPane==null || imageView==null) return; double total = rootPane.getHeight(); double top = (toolBar!=null && toolBar.isVisible())? toolBar.getHeight():0; double bottom = (statusBar!=null && statusBar.isVisible())? statusBar.getHeight():0; double padding = 10; double available = total - top - bottom - padding; if (available <0) available = 0; imageView.setFitHeight(available); }
-    private void updatePlaceholderVisibility() { if (placeholderLabel==null) return; boolean noImages; synchronized (this) { noImages = imageFiles.isEmpty(); } boolean hasDisplayed = imageView!=null && imageView.getImage()!=null; boolean show = noImages || !hasDisplayed; placeholderLabel.setVisible(show); placeholderLabel.setManaged(show); if (noImages) { if (rootDirectory==null) placeholderLabel.setText("Click 'Choose Folder' to select a folder. Images inside it and its subfolders will play here."); else placeholderLabel.setText("No images found in the selected folder. Add images or choose another folder."); } }
+    @FXML private void onManualRefresh() { engine.refresh(); }
+    private void updateAvailableImageHeight() { if (rootPane==null || imageView==null) return; double total = rootPane.getHeight(); double top = (toolBar!=null && toolBar.isVisible())? toolBar.getHeight():0; double bottom = (statusBar!=null && statusBar.isVisible())? statusBar.getHeight():0; double padding = 10; double available = total - top - bottom - padding; if (available <0) available = 0; imageView.setFitHeight(available); updateDecodeTarget(); }
+    private void updatePlaceholderVisibility() { if (placeholderLabel==null) return; boolean noImages = engine.state().imageCount() == 0; boolean hasDisplayed = transitions!=null && transitions.current()!=null; boolean show = noImages || !hasDisplayed; placeholderLabel.setVisible(show); placeholderLabel.setManaged(show); if (noImages) { if (rootDirectory==null) placeholderLabel.setText("Click 'Choose Folder' to select a folder. Images inside it and its subfolders will play here."); else placeholderLabel.setText("No images found in the selected folder. Add images or choose another folder."); } }
 }
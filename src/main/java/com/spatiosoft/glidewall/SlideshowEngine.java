@@ -0,0 +1,420 @@
+package com.spatiosoft.glidewall;
+
+import com.spatiosoft.glidewall.SlideDecoder.DecodedSlide;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * The slideshow without its UI: folder index, metadata catalog, validation, play order, look-ahead decoding,
+ * file watching and the per-screen slide schedule.
+ * <p>
+ * All work runs on the engine's own threads. Results leave the engine only as immutable values: a {@link State}
+ * snapshot replaced atomically on every change (readable from any thread without locking) and {@link Listener}
+ * callbacks carrying decoded slides and index diffs. Nothing here touches JavaFX nodes or the FX thread, so a UI
+ * can coalesce the callbacks into one update per frame, and the engine can be driven headless (e.g. load tests).
+ * Screen 0 is the main view; screens 1..n are the extra displays of a video wall.
+ */
+public class SlideshowEngine {
+    /** What a UI needs to render controls and counters; replaced as a whole, never mutated. */
+    public record State(Path root, int imageCount, boolean running, int screens) {
+        public boolean hasFolder() { return root != null; }
+    }
+
+    /**
+     * Engine events. Called on engine threads, possibly concurrently: implementations must not block and should
+     * only record what changed and schedule their own update. Every slide passed in is owned by the listener,
+     * which must release it once it no longer needs the pixels (its frame goes back to the pool).
+     */
+    public interface Listener {
+        /** {@code slide} is due on {@code screen}; {@code deadline} is the System.nanoTime() it was due at. */
+        default void slide(int screen, DecodedSlide slide, long deadline) { slide.release(); }
+
+        /** The slide {@code screen} shows next is decoded and can be preloaded. */
+        default void preload(int screen, DecodedSlide slide) { slide.release(); }
+
+        /** A sharper decode of {@code shown}, after the display size changed; {@code shown} is not passed on. */
+        default void sharper(DecodedSlide shown, DecodedSlide sharper) { sharper.release(); }
+
+        /** Images entered or left the rotation; {@code initial} for the first images of a folder. */
+        default void libraryChanged(IndexDiff diff, boolean initial) {}
+
+        default void stateChanged(State state) {}
+
+        default void status(String message) {}
+    }
+
+    // Full-tree walk is only a consistency audit now; the watcher feeds the index incrementally.
+    private static final int AUDIT_INTERVAL_SECONDS = 300;
+    // Upload bursts are coalesced into one index update; both windows can be tuned with -D system properties.
+    private static final long WATCH_QUIET_MILLIS = Long.getLong("glidewall.watch.quietMillis", 750);
+    private static final long WATCH_MAX_LATENCY_MILLIS = Long.getLong("glidewall.watch.maxLatencyMillis", 4000);
+    // Upper bound for waiting on an in-flight look-ahead decode before the slide is decoded directly.
+    private static final long PREFETCH_WAIT_MILLIS = 10_000;
+    // Images arriving after the first scan (uploads, synced folders) are shown next instead of waiting for their slot.
+    private static final boolean NEW_FIRST = Boolean.parseBoolean(System.getProperty("glidewall.play.newFirst", "true"));
+    // -Dglidewall.play.order=taken plays each cycle by capture time (EXIF, else mtime) instead of shuffled.
+    private static final boolean BY_CAPTURE_TIME = "taken".equalsIgnoreCase(System.getProperty("glidewall.play.order", "shuffle"));
+
+    private final SlidePrefetcher prefetcher;
+    private final SlideDecoder decoder;
+    private final ImageValidator validator;
+    private final GlideWallMetrics metrics;
+    private final PlaylistScheduler playlist = new PlaylistScheduler(new Random());
+    private final ScheduledExecutorService scheduler;
+    // Folder loads, watcher batches and the audit walk: a long walk must not delay a slide. Two threads, so
+    // watcher batches keep flowing while a walk runs.
+    private final ScheduledExecutorService indexExec = Executors.newScheduledThreadPool(2, r -> { Thread t = new Thread(r, "slideshow-index"); t.setDaemon(true); t.setPriority(Thread.NORM_PRIORITY - 1); return t; });
+    private final ExecutorService catalogExec = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "catalog"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t; });
+    private final AtomicReference<State> state = new AtomicReference<>(new State(null, 0, false, 1));
+    private volatile Listener listener = new Listener() {};
+
+    private volatile ImageIndex index;
+    private volatile MetadataCatalog catalog;
+    private FolderWatcher folderWatcher;
+    private volatile AtomicReferenceArray<Path> expected = new AtomicReferenceArray<>(1); // per screen: the slide it shows next, preloaded once decoded
+    private final List<ScheduledFuture<?>> screenTasks = new ArrayList<>();
+    private ScheduledFuture<?> rescanTask;
+    private ScheduledFuture<?> redecodeTask;
+    private int intervalSeconds = 5;
+
+    /** {@code maxScreens}: the most screens that will ever be driven, one slide worker thread each (plus one for jumps and re-decodes). */
+    public SlideshowEngine(SlidePrefetcher prefetcher, ImageValidator validator, GlideWallMetrics metrics, int maxScreens) {
+        this.prefetcher = prefetcher;
+        this.decoder = prefetcher.decoder();
+        this.validator = validator;
+        this.metrics = metrics;
+        this.scheduler = Executors.newScheduledThreadPool(1 + Math.max(1, maxScreens), r -> { Thread t = new Thread(r, "slideshow-worker"); t.setDaemon(true); return t; });
+        prefetcher.setOnReady(this::prefetched);
+        decoder.setOrientations(this::orientation);
+    }
+
+    public void setListener(Listener listener) { this.listener = listener == null ? new Listener() {} : listener; }
+
+    /** Latest snapshot; lock-free, safe to call from any thread at any rate. */
+    public State state() { return state.get(); }
+
+    public SlideDecoder decoder() { return decoder; }
+
+    public SlidePrefetcher prefetcher() { return prefetcher; }
+
+    public ImageValidator validator() { return validator; }
+
+    public PlaylistScheduler playlist() { return playlist; }
+
+    public ImageIndex index() { return index; }
+
+    /** Switches to {@code root}: stops playback, resets index and caches, starts watching, loads in the background. */
+    public synchronized void open(Path root) {
+        stopWatcher();
+        cancelSlides();
+        cancel(rescanTask);
+        closeCatalog(catalog); catalog = null;
+        ImageIndex idx = new ImageIndex(root);
+        index = idx;
+        playlist.clear();
+        applyFolderWeights(playlist, root);
+        playlist.setOrder(BY_CAPTURE_TIME ? this::takenAt : null);
+        prefetcher.clear(); validator.clear();
+        publish(s -> new State(root, 0, false, s.screens()));
+        startWatcher(idx);
+        indexExec.submit(() -> loadFolder(root, idx));
+    }
+
+    /** Starts playing every screen, one slide per {@code intervalSeconds}; the audit rescan runs while playing. */
+    public synchronized void start(int intervalSeconds) {
+        State s = state.get();
+        if (s.running() || !s.hasFolder()) return;
+        this.intervalSeconds = intervalSeconds;
+        publish(x -> new State(x.root(), x.imageCount(), true, x.screens()));
+        cancel(rescanTask);
+        rescanTask = indexExec.scheduleAtFixedRate(this::rebuildFileList, AUDIT_INTERVAL_SECONDS, AUDIT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduleSlides();
+    }
+
+    public synchronized void stop() {
+        if (!state.get().running()) return;
+        publish(x -> new State(x.root(), x.imageCount(), false, x.screens()));
+        cancelSlides();
+        cancel(rescanTask);
+    }
+
+    public synchronized void setInterval(int seconds) {
+        if (seconds == intervalSeconds) return;
+        intervalSeconds = seconds;
+        if (state.get().running()) scheduleSlides();
+    }
+
+    /** Drives {@code count} screens (1 = main view only); playback is rescheduled if running. */
+    public synchronized void setScreens(int count) {
+        int n = Math.max(1, count);
+        expected = new AtomicReferenceArray<>(n);
+        publish(x -> new State(x.root(), x.imageCount(), x.running(), n));
+        if (state.get().running()) scheduleSlides();
+    }
+
+    /** Shows {@code file} on the main view out of turn; the play order carries on where it was. */
+    public void jump(Path file) { scheduler.submit(() -> { playlist.jump(file); show(0, file, System.nanoTime()); }); }
+
+    public void shuffle() {
+        if (playlist.isEmpty()) return;
+        playlist.reshuffle();
+        status("Shuffled");
+        if (playlist.current() != null) scheduler.submit(() -> prefetcher.prefetch(upcoming()));
+    }
+
+    /** Full rescan now (the Refresh button). */
+    public void refresh() { indexExec.submit(() -> { rebuildFileList(); status("Refreshed"); }); }
+
+    // Uploads are complete when they are renamed into place, so they go into the index without waiting for the watcher.
+    public void uploaded(List<Path> files) {
+        ImageIndex idx = index;
+        if (idx == null) return;
+        IndexDiff.Builder diff = new IndexDiff.Builder();
+        for (Path p : files) diff.add(idx.fileCreated(p));
+        applyDiff(diff.build());
+    }
+
+    /** Re-decodes {@code shown} at the current target size once resizes settle; the result arrives as {@link Listener#sharper}. */
+    public synchronized void redecodeLater(DecodedSlide shown) {
+        if (!decoder.needsRedecode(shown)) return;
+        // Resizes arrive in bursts (window drag, fullscreen toggle); re-decode once they settle.
+        cancel(redecodeTask);
+        redecodeTask = scheduler.schedule(() -> {
+            if (!decoder.needsRedecode(shown)) return;
+            DecodedSlide sharper = decoder.decode(shown.file());
+            if (sharper != null) listener.sharper(shown, sharper);
+            List<Path> upcoming = upcoming();
+            prefetcher.prefetch(upcoming);
+            expect(0, upcoming);
+        }, 400, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        stop();
+        stopWatcher();
+        scheduler.shutdownNow();
+        indexExec.shutdownNow();
+        prefetcher.shutdown();
+        closeCatalog(catalog); catalog = null;
+        catalogExec.shutdown();
+        validator.shutdown();
+    }
+
+    private void publish(UnaryOperator<State> change) {
+        State s = state.updateAndGet(change);
+        listener.stateChanged(s);
+    }
+
+    private void status(String message) { listener.status(message); }
+
+    // Cold start: play what the catalog knew from the last session right away, then reconcile with the disk.
+    private void loadFolder(Path root, ImageIndex idx) {
+        MetadataCatalog cat = openCatalog(root);
+        if (idx != index) { closeCatalog(cat); return; } // folder changed meanwhile
+        catalog = cat;
+        if (cat != null && cat.size() > 0) { applyDiff(idx.seed(cat.paths())); status(String.format("Restored %d images from catalog, verifying...", cat.size())); }
+        rebuildFileList();
+    }
+
+    private MetadataCatalog openCatalog(Path root) {
+        try { return MetadataCatalog.open(root, AppDirs.cacheDir("catalog")); } catch (IOException e) { status("Catalog unavailable: " + e.getMessage()); return null; }
+    }
+
+    // Runs after screening, so every entry carries the verdict of a check (or of an unchanged earlier one).
+    private void updateCatalog(List<Path> removed, List<Path> screened) {
+        MetadataCatalog cat = catalog;
+        if (cat == null) return;
+        Map<Path, String> verdicts = new HashMap<>();
+        for (Path p : screened) { var q = validator.get(p); verdicts.put(p, q == null ? null : q.reason()); }
+        catalogExec.submit(() -> {
+            try {
+                for (Path p : removed) cat.remove(p);
+                for (Map.Entry<Path, String> e : verdicts.entrySet()) { try { cat.refresh(e.getKey(), e.getValue()); } catch (IOException ignored) {} }
+                cat.flush();
+                if (BY_CAPTURE_TIME && !screened.isEmpty()) { playlist.resort(); scheduler.submit(() -> prefetcher.prefetch(upcoming())); }
+            } catch (IOException ignored) {}
+        });
+    }
+
+    // EXIF fields come from the catalog, read once per file version; files it has not seen yet are read directly.
+    private int orientation(Path file) {
+        MetadataCatalog cat = catalog;
+        MetadataCatalog.ImageMeta m = cat == null ? null : cat.get(file);
+        return m != null && m.orientation() > 0 ? m.orientation() : ExifReader.orientation(file);
+    }
+
+    private long takenAt(Path file) {
+        MetadataCatalog cat = catalog;
+        MetadataCatalog.ImageMeta m = cat == null ? null : cat.get(file);
+        return m == null ? Long.MAX_VALUE : m.takenAt(); // not cataloged yet: at the end until resorted
+    }
+
+    private void closeCatalog(MetadataCatalog cat) {
+        if (cat == null) return;
+        catalogExec.submit(() -> { try { cat.close(); } catch (IOException ignored) {} });
+    }
+
+    private void startWatcher(ImageIndex idx) {
+        WatchEventBatcher batcher = new WatchEventBatcher(indexExec, WATCH_QUIET_MILLIS, WATCH_MAX_LATENCY_MILLIS, changes -> { long t0 = System.nanoTime(); IndexDiff diff = idx.apply(changes); metrics.indexUpdated(t0); if (idx == index) applyDiff(diff); });
+        folderWatcher = new FolderWatcher(idx.root(), batcher, c -> { if (c.polled() > 0) status(String.format("Watch limit reached: %d folders watched, %d polled", c.watched(), c.polled())); });
+        metrics.watch(idx, batcher, folderWatcher);
+        try { folderWatcher.start(); } catch (IOException e) { status("Watcher error: " + e.getMessage()); }
+    }
+
+    private void stopWatcher() { if (folderWatcher != null) { folderWatcher.close(); folderWatcher = null; } }
+
+    private void rebuildFileList() {
+        ImageIndex idx = index;
+        if (idx == null) return;
+        try { long t0 = System.nanoTime(); IndexDiff diff = idx.fullScan(); metrics.rescanFinished(t0, idx.size()); if (idx == index) applyDiff(diff); } catch (IOException ignored) {}
+    }
+
+    // Merges an index delta into the play order without reshuffling or re-walking: removals leave tombstones,
+    // additions go to random unplayed slots of the current cycle, or to the front of the queue (see PlaylistScheduler).
+    private void applyDiff(IndexDiff diff) {
+        if (diff.isEmpty()) return;
+        applyToOrder(screen(diff, catalog));
+    }
+
+    // Only files that will actually render reach the rotation; changed files leave or re-enter quarantine. Files
+    // the catalog holds a verdict for, at their current size and mtime, keep that verdict without being opened.
+    private IndexDiff screen(IndexDiff diff, MetadataCatalog cat) {
+        for (Path p : diff.removed()) validator.forget(p);
+        if (diff.added().isEmpty() && diff.modified().isEmpty()) { updateCatalog(diff.removed(), List.of()); return diff; }
+        Set<Path> wasQuarantined = new HashSet<>();
+        for (Path p : diff.modified()) if (validator.isQuarantined(p)) wasQuarantined.add(p);
+        List<Path> candidates = new ArrayList<>(diff.added()); candidates.addAll(diff.modified());
+        int quarantinedBefore = validator.quarantinedCount();
+        Map<Path, MetadataCatalog.ImageMeta> unchanged = new HashMap<>();
+        if (cat != null) for (Path p : candidates) { var m = unchangedInCatalog(cat, p); if (m != null) unchanged.put(p, m); }
+        List<Path> toCheck = new ArrayList<>(candidates.size());
+        for (Path p : candidates) {
+            var m = unchanged.get(p);
+            if (m != null && !m.passed()) validator.quarantine(p, m.rejected()); else toCheck.add(p);
+        }
+        Set<Path> ok = new HashSet<>(validator.filter(toCheck, unchanged::containsKey));
+        List<Path> verdictChanged = new ArrayList<>(candidates.size());
+        for (Path p : candidates) if (!unchanged.containsKey(p) || unchanged.get(p).passed() != ok.contains(p)) verdictChanged.add(p);
+        updateCatalog(diff.removed(), verdictChanged);
+        List<Path> added = new ArrayList<>(), removed = new ArrayList<>(diff.removed()), modified = new ArrayList<>();
+        for (Path p : diff.added()) if (ok.contains(p)) added.add(p);
+        for (Path p : diff.modified()) {
+            if (ok.contains(p)) (wasQuarantined.contains(p) ? added : modified).add(p);
+            else if (!wasQuarantined.contains(p)) removed.add(p);
+        }
+        int newlyQuarantined = validator.quarantinedCount() - quarantinedBefore;
+        if (newlyQuarantined > 0) {
+            var example = candidates.stream().filter(p -> !ok.contains(p)).map(validator::get).filter(Objects::nonNull).findFirst();
+            example.ifPresent(q -> status(String.format("Skipped %d unplayable file(s), e.g. %s: %s", newlyQuarantined, q.file().getFileName(), q.reason())));
+        }
+        return new IndexDiff(added, removed, modified);
+    }
+
+    private static MetadataCatalog.ImageMeta unchangedInCatalog(MetadataCatalog cat, Path p) {
+        var meta = cat.get(p);
+        if (meta == null) return null;
+        try { return meta.matches(Files.readAttributes(p, BasicFileAttributes.class)) ? meta : null; } catch (IOException e) { return null; }
+    }
+
+    private void applyToOrder(IndexDiff diff) {
+        if (diff.isEmpty()) return;
+        boolean initial;
+        int count;
+        synchronized (playlist) {
+            initial = playlist.isEmpty();
+            playlist.remove(new HashSet<>(diff.removed()));
+            playlist.add(diff.added(), NEW_FIRST && !initial);
+            count = playlist.size();
+        }
+        publish(s -> new State(s.root(), count, s.running(), s.screens()));
+        listener.libraryChanged(diff, initial);
+        if (!diff.added().isEmpty() && !initial) status(String.format("New images: %d (%s)", diff.added().size(), NEW_FIRST ? "showing next" : "shuffled in"));
+        else if (!diff.removed().isEmpty()) status("Images removed (list updated)");
+        if (playlist.current() != null && state.get().running()) prefetcher.prefetch(upcoming());
+    }
+
+    // Screens take their turns spread evenly over the interval, so decodes and transitions do not all land on one tick.
+    private void scheduleSlides() {
+        cancelSlides();
+        int n = state.get().screens();
+        long period = intervalSeconds * 1000L;
+        for (int i = 0; i < n; i++) { int screen = i; screenTasks.add(scheduler.scheduleAtFixedRate(() -> showNext(screen), period * i / n, period, TimeUnit.MILLISECONDS)); }
+    }
+
+    private void cancelSlides() { for (ScheduledFuture<?> t : screenTasks) cancel(t); screenTasks.clear(); }
+
+    // All screens consume the same cursor over the play order, so each shows a different image.
+    private void showNext(int screen) {
+        if (!state.get().running()) return;
+        long deadline = System.nanoTime();
+        Path file = playlist.next();
+        if (file != null) show(screen, file, deadline);
+    }
+
+    private void show(int screen, Path file, long deadline) {
+        DecodedSlide slide = prefetcher.take(file, PREFETCH_WAIT_MILLIS);
+        if (slide == null) { dropUndecodable(file); return; }
+        listener.slide(screen, slide, deadline);
+        List<Path> upcoming = upcoming();
+        prefetcher.prefetch(upcoming);
+        expect(screen, upcoming);
+    }
+
+    // Screens take turns round-robin, so a screen's next slide comes after every other screen took one.
+    private void expect(int screen, List<Path> upcoming) {
+        AtomicReferenceArray<Path> e = expected;
+        if (screen >= e.length()) return;
+        int k = e.length() - 1;
+        Path next = upcoming.size() > k ? upcoming.get(k) : null;
+        e.set(screen, next);
+        DecodedSlide ready = next == null ? null : prefetcher.peek(next);
+        if (ready != null) listener.preload(screen, ready);
+    }
+
+    private void prefetched(Path file, DecodedSlide slide) {
+        AtomicReferenceArray<Path> e = expected;
+        for (int i = 0; i < e.length(); i++) if (file.equals(e.get(i))) listener.preload(i, slide.retain());
+    }
+
+    // Passed validation but still failed to decode: take it out of the rotation until the file changes.
+    private void dropUndecodable(Path file) {
+        validator.quarantine(file, "decode failed");
+        updateCatalog(List.of(), List.of(file));
+        applyToOrder(new IndexDiff(List.of(), List.of(file), List.of()));
+        status("Cannot display " + file.getFileName() + " (skipped)");
+    }
+
+    // Next slides in play order, used to drive the prefetcher.
+    private List<Path> upcoming() { return playlist.size() < 2 ? List.of() : playlist.upcoming(prefetcher.depth()); }
+
+    // -Dglidewall.folderWeights=holidays=2,archive/old=0.25: folders relative to the chosen one, applied to their subfolders too.
+    private static void applyFolderWeights(PlaylistScheduler playlist, Path root) {
+        String spec = System.getProperty("glidewall.folderWeights", "");
+        for (String part : spec.split(",")) {
+            int eq = part.lastIndexOf('=');
+            if (eq <= 0) continue;
+            try { playlist.setFolderWeight(root.resolve(part.substring(0, eq).trim()).normalize(), Double.parseDouble(part.substring(eq + 1).trim())); } catch (RuntimeException ignored) {}
+        }
+    }
+
+    private static void cancel(ScheduledFuture<?> task) { if (task != null) task.cancel(false); }
+}
@@ -0,0 +1,278 @@
+package com.spatiosoft.glidewall;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Two-tier thumbnail cache with a prioritised, cancellable loader.
+ * <p>
+ * The memory tier is an LRU map bounded by an estimated pixel byte budget (4 bytes per pixel). The disk tier
+ * stores small JPEGs keyed by path + mtime + size in a {@link DiskCache}, so thumbnails survive restarts, an edited
+ * file never serves a stale thumbnail, and the tier stays within its own byte budget. Concurrent requests for the
+ * same file share one decode. Misses are loaded by {@link #request(Path, Consumer)} on a fixed number of threads,
+ * newest request first, so the cells currently on screen win over those that scrolled past; a request whose cell
+ * was reused is cancelled before it costs a decode. Every loaded thumbnail also leaves a tiny copy in a separate,
+ * much larger placeholder tier, so scrolling back shows a blurred preview at once instead of an empty cell. In a
+ * folder written by {@link RenditionExporter} the pre-rendered thumbnails are decoded instead of the renditions.
+ */
+public class ThumbnailCache {
+    public record Stats(long hits, long diskHits, long misses, long evictions, long cancelled, long bytes, long maxBytes, int entries) {
+        public double hitRatio() {
+            long total = hits + diskHits + misses;
+            return total == 0 ? 0 : (double) (hits + diskHits) / total;
+        }
+    }
+
+    /** A pending load; cancel it when the cell that asked is reused or hidden. */
+    public interface Request {
+        void cancel();
+    }
+
+    private static final int PLACEHOLDER_WIDTH = 24;
+    private static final int PLACEHOLDER_HEIGHT = 18;
+
+    private record Entry(Image image, long bytes) {}
+
+    // Ordered newest first: the latest requests belong to the cells the user is looking at now.
+    private final class Load implements Runnable, Comparable<Load>, Request {
+        final Path file;
+        final long seq;
+        volatile Consumer<Image> callback;
+
+        Load(Path file, long seq, Consumer<Image> callback) {
+            this.file = file;
+            this.seq = seq;
+            this.callback = callback;
+        }
+
+        @Override public void cancel() {
+            if (callback == null) return;
+            callback = null;
+            cancelled.increment();
+        }
+
+        @Override public int compareTo(Load o) { return Long.compare(o.seq, seq); }
+
+        @Override public void run() {
+            if (callback == null) return; // scrolled away before its turn
+            Image img = load(file);
+            Consumer<Image> cb = callback;
+            callback = null; // done: a later cancel() is a no-op
+            if (img != null && cb != null) cb.accept(img);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final long maxBytes;
+    private final long maxPlaceholderBytes;
+    private final DiskCache disk;
+    private volatile Path exportRoot; // folder with pre-rendered thumbnails, or null
+    private final Map<Path, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor loaders;
+    private final ExecutorService io;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LinkedHashMap<Path, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<Path, Image> placeholders = new LinkedHashMap<>(1024, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * @param diskDir     directory for the persistent tier, or null for memory only
+     * @param diskBytes   budget of the persistent tier
+     * @param threads     thumbnails decoded at the same time
+     * @param placeholderBytes budget of the low-res placeholder tier
+     */
+    public ThumbnailCache(int width, int height, long maxBytes, Path diskDir, long diskBytes, int threads, long placeholderBytes) {
+        this.width = width;
+        this.height = height;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxPlaceholderBytes = Math.max(0, placeholderBytes);
+        this.disk = diskDir == null ? null : new DiskCache(diskDir, diskBytes, ".jpg");
+        int n = Math.max(1, threads);
+        this.loaders = new ThreadPoolExecutor(n, n, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> { Thread t = new Thread(r, "thumb-loader"); t.setDaemon(true); t.setPriority(Thread.NORM_PRIORITY - 1); return t; });
+        this.loaders.allowCoreThreadTimeOut(true);
+        this.io = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "thumb-store"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t; });
+    }
+
+    public ThumbnailCache(int width, int height, long maxBytes, Path diskDir) {
+        this(width, height, maxBytes, diskDir, 64 * maxBytes, 2, maxBytes / 8);
+    }
+
+    /** The thumbnail if it is in memory; never blocks or touches the disk. */
+    public synchronized Image peek(Path file) {
+        Entry e = memory.get(file);
+        if (e == null) return null;
+        hits.increment();
+        return e.image;
+    }
+
+    /** A low-res stand-in for a thumbnail that was loaded before, or null. */
+    public synchronized Image placeholder(Path file) { return placeholders.get(file); }
+
+    /**
+     * Loads the thumbnail in the background (disk tier, else the original) and hands it to {@code onLoaded} on a
+     * loader thread. Requests are served newest first.
+     */
+    public Request request(Path file, Consumer<Image> onLoaded) {
+        Load load = new Load(file, sequence.incrementAndGet(), onLoaded);
+        try { loaders.execute(load); } catch (RuntimeException ignored) {} // shut down
+        return load;
+    }
+
+    /** Synchronous lookup: the thumbnail from memory, or loaded now in the calling thread (not the FX thread). */
+    public Image get(Path file) {
+        Image img = peek(file);
+        return img != null ? img : load(file);
+    }
+
+    /** Reads thumbnails from the export at {@code root} from now on; null when the folder is not an export. */
+    public void setExportRoot(Path root) { exportRoot = root; }
+
+    /** Forgets {@code file} after it changed or was deleted, including its stored thumbnail. */
+    public synchronized void remove(Path file) {
+        Entry e = memory.remove(file);
+        if (e != null) bytes -= e.bytes;
+        placeholders.remove(file);
+        if (disk != null) { try { io.submit(() -> disk.remove(file)); } catch (RuntimeException ignored) {} } // shut down
+    }
+
+    public synchronized void clear() {
+        memory.clear();
+        placeholders.clear();
+        bytes = 0;
+        loaders.getQueue().clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), diskHits.sum(), misses.sum(), evictions.sum(), cancelled.sum(), bytes, maxBytes, memory.size());
+    }
+
+    public void shutdown() {
+        loaders.shutdownNow();
+        io.shutdownNow();
+    }
+
+    // Single flight: a request for a file another thread is loading waits for that load.
+    private Image load(Path file) {
+        synchronized (this) {
+            Entry e = memory.get(file);
+            if (e != null) return e.image; // loaded by an earlier request meanwhile
+        }
+        CompletableFuture<Image> mine = new CompletableFuture<>();
+        CompletableFuture<Image> running = inFlight.putIfAbsent(file, mine);
+        if (running != null) return running.join();
+        try {
+            Image img = loadNow(file);
+            mine.complete(img);
+            return img;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(file, mine);
+        }
+    }
+
+    private Image loadNow(Path file) {
+        Path root = exportRoot;
+        Path exported = root == null ? null : RenditionExporter.exportedThumb(root, file);
+        Path stored = exported == null ? diskPath(file) : null; // a pre-rendered thumbnail is as cheap to read as a stored one
+        BufferedImage thumb = null;
+        if (stored != null && disk.get(stored) != null) {
+            try { thumb = ImageIO.read(stored.toFile()); } catch (IOException ignored) {}
+            if (thumb != null) diskHits.increment();
+        }
+        if (thumb == null) {
+            thumb = decode(exported != null ? exported : file);
+            if (thumb == null) return null;
+            misses.increment();
+            if (stored != null) { BufferedImage t = thumb; io.submit(() -> write(t, stored)); }
+        }
+        Image img = SwingFXUtils.toFXImage(thumb, null);
+        put(file, img, SwingFXUtils.toFXImage(RenditionStore.fit(thumb, PLACEHOLDER_WIDTH, PLACEHOLDER_HEIGHT), null));
+        return img;
+    }
+
+    // ImageIO with source subsampling; formats it cannot read go through the FX decoder (synchronously, on this thread).
+    private BufferedImage decode(Path file) {
+        BufferedImage bi = RenditionStore.decodeFit(file, width, height, true);
+        if (bi != null) return bi;
+        try {
+            Image fx = new Image(file.toUri().toString(), width, height, true, true, false);
+            return fx.isError() ? null : SwingFXUtils.fromFXImage(fx, null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private synchronized void put(Path file, Image img, Image placeholder) {
+        long size = (long) img.getWidth() * (long) img.getHeight() * 4;
+        Entry old = memory.put(file, new Entry(img, size));
+        if (old != null) bytes -= old.bytes;
+        bytes += size;
+        for (Iterator<Map.Entry<Path, Entry>> it = memory.entrySet().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            Map.Entry<Path, Entry> eldest = it.next();
+            if (eldest.getKey().equals(file)) continue;
+            bytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions.increment();
+        }
+        placeholders.put(file, placeholder);
+        long perPlaceholder = PLACEHOLDER_WIDTH * PLACEHOLDER_HEIGHT * 4;
+        for (Iterator<Path> it = placeholders.keySet().iterator(); placeholders.size() * perPlaceholder > maxPlaceholderBytes && it.hasNext(); ) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private void write(BufferedImage thumb, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "thumb", ".tmp");
+            try {
+                RenditionStore.writeJpeg(thumb, tmp, 0.85f);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            disk.stored(target);
+        } catch (IOException ignored) {}
+    }
+
+    private Path diskPath(Path file) {
+        if (disk == null) return null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return disk.path(file, attrs.lastModifiedTime().toMillis() + "|" + attrs.size() + "|" + width + "x" + height + "|upright");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
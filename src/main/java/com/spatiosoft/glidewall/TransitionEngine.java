@@ -0,0 +1,244 @@
+package com.spatiosoft.glidewall;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+
+import java.util.Locale;
+
+/**
+ * Plays slide transitions on a fixed pair of image views that stay in the scene for the life of the window.
+ * <p>
+ * Nothing is allocated per slide: no nodes are added or removed, no bindings are created, and a single
+ * {@link AnimationTimer} drives opacity and transforms, which the renderer applies to the existing textures. The
+ * back view can be handed the next slide ahead of time ({@link #preload(Image)}); it is then drawn at an
+ * imperceptible opacity so its texture is uploaded during an idle pulse rather than in the first transition frame.
+ * Frame times and missed frames of every transition are reported to {@link GlideWallMetrics}. Images from a
+ * {@link FramePool} are shown through their viewport, and each view holds a reference to the frame it shows, so a
+ * frame is only recycled once no view draws it. Callers keep their own references. FX thread only.
+ */
+public class TransitionEngine {
+    /** A transition effect: positions both views for a progress value; must leave identity transforms at 1. */
+    public interface Transition {
+        long defaultMillis();
+
+        /**
+         * @param t     eased progress in [0, 1]
+         * @param width width of the area the views are clipped to
+         * @param seq   number of the transition, for effects that alternate direction
+         */
+        void apply(ImageView from, ImageView to, double t, double width, double height, long seq);
+    }
+
+    /** Built-in effects, selected with {@code -Dglidewall.transition=fade|kenburns|slide|none}. */
+    public enum Effect implements Transition {
+        NONE(0) {
+            @Override public void apply(ImageView from, ImageView to, double t, double width, double height, long seq) { from.setOpacity(0); to.setOpacity(1); }
+        },
+        FADE(550) {
+            @Override public void apply(ImageView from, ImageView to, double t, double width, double height, long seq) { from.setOpacity(1 - t); to.setOpacity(t); }
+        },
+        // The outgoing slide keeps drifting forward while the incoming one settles from a slight zoom and pan.
+        KENBURNS(1400) {
+            @Override public void apply(ImageView from, ImageView to, double t, double width, double height, long seq) {
+                double dir = (seq & 1) == 0 ? 1 : -1;
+                from.setOpacity(1 - t);
+                from.setScaleX(1 + 0.06 * t);
+                from.setScaleY(1 + 0.06 * t);
+                from.setTranslateX(-dir * width * 0.02 * t);
+                to.setOpacity(t);
+                to.setScaleX(1.08 - 0.08 * t);
+                to.setScaleY(1.08 - 0.08 * t);
+                to.setTranslateX(dir * width * 0.03 * (1 - t));
+                to.setTranslateY(height * 0.02 * (1 - t));
+            }
+        },
+        SLIDE(450) {
+            @Override public void apply(ImageView from, ImageView to, double t, double width, double height, long seq) {
+                to.setOpacity(1);
+                from.setTranslateX(-width * t);
+                to.setTranslateX(width * (1 - t));
+            }
+        };
+
+        private final long millis;
+
+        Effect(long millis) { this.millis = millis; }
+
+        @Override public long defaultMillis() { return millis; }
+
+        /** Parses a property value; unknown names fall back to {@link #FADE}. */
+        public static Effect parse(String name) {
+            if (name == null) return FADE;
+            return switch (name.trim().toLowerCase(Locale.ROOT).replace("-", "").replace("_", "")) {
+                case "none", "cut" -> NONE;
+                case "kenburns" -> KENBURNS;
+                case "slide" -> SLIDE;
+                default -> FADE;
+            };
+        }
+    }
+
+    // Below 1/255: contributes nothing visible, but keeps the view in the render pass so its texture gets uploaded.
+    private static final double PRELOAD_OPACITY = 1.0 / 512;
+
+    private final ImageView[] views = new ImageView[2];
+    private final Pane pane;
+    private final GlideWallMetrics metrics;
+    private final FramePool pool;
+    private final FrameMonitor frames = new FrameMonitor();
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override public void handle(long now) { tick(now); }
+    };
+    private Transition transition;
+    private long durationNanos;
+    private int front;
+    private boolean running;
+    private long startedAt;
+    private long seq;
+    private Image pendingPreload;
+
+    /**
+     * Adds a second view next to {@code primary} (same sizing, bound once) and clips {@code pane}, so slides
+     * moving or zooming never draw outside the image area. {@code pool} may be null when slides are heap images.
+     */
+    public TransitionEngine(Pane pane, ImageView primary, GlideWallMetrics metrics, Transition transition, long millis, FramePool pool) {
+        this.pane = pane;
+        this.metrics = metrics;
+        this.pool = pool;
+        ImageView second = new ImageView();
+        second.setPreserveRatio(primary.isPreserveRatio());
+        second.setSmooth(primary.isSmooth());
+        second.setMouseTransparent(true);
+        second.fitWidthProperty().bind(primary.fitWidthProperty());
+        second.fitHeightProperty().bind(primary.fitHeightProperty());
+        second.setOpacity(0);
+        primary.setCache(false);
+        pane.getChildren().add(pane.getChildren().indexOf(primary) + 1, second);
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(pane.widthProperty());
+        clip.heightProperty().bind(pane.heightProperty());
+        pane.setClip(clip);
+        views[0] = primary;
+        views[1] = second;
+        setTransition(transition, millis);
+        stack();
+    }
+
+    /** Switches the effect; {@code millis <= 0} uses the effect's default duration. Applies from the next slide. */
+    public void setTransition(Transition transition, long millis) {
+        this.transition = transition;
+        this.durationNanos = Math.max(0, millis > 0 ? millis : transition.defaultMillis()) * 1_000_000;
+    }
+
+    /** The image on screen, or being transitioned to. */
+    public Image current() { return views[running ? 1 - front : front].getImage(); }
+
+    public boolean isRunning() { return running; }
+
+    /** Transitions to {@code image}; a transition still running is completed at once and counted as cut short. */
+    public void show(Image image) {
+        if (running) {
+            complete();
+            metrics.transitionDropped();
+        }
+        ImageView from = views[front], to = views[1 - front];
+        if (from.getImage() == null || durationNanos == 0) {
+            set(from, image);
+            from.setOpacity(1);
+            clearBack();
+            return;
+        }
+        set(to, image); // a no-op if it was preloaded: the texture is already on the GPU
+        reset(to);
+        to.setOpacity(0);
+        stack();
+        seq++;
+        startedAt = -1;
+        running = true;
+        frames.start();
+        timer.start();
+    }
+
+    /** Gives the back view the next slide so its texture is uploaded before it is shown. Deferred while animating. */
+    public void preload(Image next) {
+        if (running) {
+            if (pool != null) { pool.attach(next); pool.detach(pendingPreload); }
+            pendingPreload = next;
+            return;
+        }
+        ImageView back = views[1 - front];
+        if (next == null || next == views[front].getImage()) return;
+        set(back, next);
+        reset(back);
+        back.setOpacity(PRELOAD_OPACITY);
+        stack();
+    }
+
+    /** Swaps a sharper decode of the shown image in place, unless a transition is running. */
+    public void replace(Image shown, Image sharper) {
+        if (!running && views[front].getImage() == shown) set(views[front], sharper);
+    }
+
+    private void tick(long now) {
+        if (startedAt < 0) startedAt = now; // progress runs from the first drawn frame, not from show()
+        long gap = frames.pulse(now);
+        if (gap > 0) metrics.transitionFrame(gap);
+        double t = Math.min(1, (double) (now - startedAt) / durationNanos);
+        transition.apply(views[front], views[1 - front], ease(t), pane.getWidth(), pane.getHeight(), seq);
+        if (t >= 1) {
+            complete();
+            metrics.transitionFinished(frames.finish());
+        }
+    }
+
+    private void complete() {
+        timer.stop();
+        running = false;
+        front = 1 - front;
+        reset(views[front]);
+        views[front].setOpacity(1);
+        clearBack();
+        Image next = pendingPreload;
+        pendingPreload = null;
+        if (next != null) preload(next);
+        if (pool != null) pool.detach(next);
+    }
+
+    // The outgoing frame is released right away; its memory is better spent on the next preload.
+    private void clearBack() {
+        ImageView back = views[1 - front];
+        set(back, null);
+        reset(back);
+        back.setOpacity(0);
+    }
+
+    // The back view is drawn above the front one (so the renderer cannot skip it as occluded), both below other
+    // children of the pane such as overlays and the placeholder.
+    private void stack() {
+        views[front].setViewOrder(2);
+        views[1 - front].setViewOrder(1);
+    }
+
+    private void set(ImageView v, Image image) {
+        Image old = v.getImage();
+        if (old == image) return;
+        if (pool != null) pool.attach(image);
+        v.setImage(image);
+        v.setViewport(pool == null ? null : pool.viewport(image));
+        if (pool != null) pool.detach(old);
+    }
+
+    private static void reset(ImageView v) {
+        v.setScaleX(1);
+        v.setScaleY(1);
+        v.setTranslateX(0);
+        v.setTranslateY(0);
+    }
+
+    private static double ease(double t) {
+        return t * t * (3 - 2 * t);
+    }
+}
@@ -0,0 +1,565 @@
+package com.spatiosoft.glidewall;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Embedded upload server for the selected slideshow folder: an upload form with a paged gallery of the folder's
+ * images, the images themselves, and multipart uploads.
+ * <p>
+ * Requests run on virtual threads, so many phones can upload at once. Uploads are streamed part by part through a
+ * bounded buffer into a hidden temp file in the folder, checked by content signature, then renamed into place, and
+ * the saved paths are handed to {@code onSaved} right away instead of waiting for the folder watcher.
+ * <p>
+ * The gallery is served from a cached listing and a {@link RenditionStore}: pages link small thumbnails and
+ * screen-sized previews with a version parameter, so they can be cached as immutable, while originals support
+ * ETag / Last-Modified revalidation and byte ranges. No authentication and no TLS: meant for a trusted LAN.
+ */
+public class UploadServer implements AutoCloseable {
+    public static final Set<String> ALLOWED_EXT = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+    private static final int PAGE_SIZE = 50;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long LISTING_MAX_AGE_MILLIS = 30_000;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static final Map<String, Map<String, String>> TRANSLATIONS = Map.of(
+            "en", Map.ofEntries(
+                    Map.entry("title", "GlideWall Image Uploader"),
+                    Map.entry("no_images", "No images uploaded yet."),
+                    Map.entry("allowed_notice", "Allowed: {ext} • Max {size}MB per request • Tap a thumbnail to open full size."),
+                    Map.entry("heading_files_suffix", "{count} file(s)"),
+                    Map.entry("upload_btn", "Upload"),
+                    Map.entry("choose_files_aria", "Choose image files to upload"),
+                    Map.entry("upload_btn_aria", "Upload selected images"),
+                    Map.entry("footer", "{count} file(s) • Mobile-friendly layout"),
+                    Map.entry("pg_first", "« First"),
+                    Map.entry("pg_prev", "‹ Prev"),
+                    Map.entry("pg_next", "Next ›"),
+                    Map.entry("pg_last", "Last »"),
+                    Map.entry("pg_page_meta", "Page {cur}/{total}")),
+            "fr", Map.ofEntries(
+                    Map.entry("title", "Téléverseur d’images GlideWall"),
+                    Map.entry("no_images", "Aucune image téléversée pour l’instant."),
+                    Map.entry("allowed_notice", "Formats autorisés : {ext} • Max {size}Mo par envoi • Touchez une vignette pour l’ouvrir."),
+                    Map.entry("heading_files_suffix", "{count} fichier{plural}"),
+                    Map.entry("upload_btn", "Envoyer"),
+                    Map.entry("choose_files_aria", "Sélectionner des images à téléverser"),
+                    Map.entry("upload_btn_aria", "Téléverser les images sélectionnées"),
+                    Map.entry("footer", "{count} fichier{plural} • Affichage mobile"),
+                    Map.entry("pg_first", "« Première"),
+                    Map.entry("pg_prev", "‹ Préc."),
+                    Map.entry("pg_next", "Suiv. ›"),
+                    Map.entry("pg_last", "Dernière »"),
+                    Map.entry("pg_page_meta", "Page {cur}/{total}")));
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path folder;
+    private final long maxBytes;
+    private final Consumer<List<Path>> onSaved;
+    private final Consumer<String> log;
+    private final Object nameLock = new Object();
+    private final String template;
+    private final byte[] viewerJs;
+    private final String assetsTag;
+    private final RenditionStore renditions;
+    private final GalleryListing listing;
+
+    private UploadServer(HttpServer server, Path folder, long maxBytes, RenditionStore renditions, Consumer<List<Path>> onSaved, Consumer<String> log) throws IOException {
+        this.server = server;
+        this.folder = folder;
+        this.renditions = renditions;
+        this.listing = new GalleryListing(folder, ALLOWED_EXT, LISTING_MAX_AGE_MILLIS);
+        this.maxBytes = maxBytes;
+        this.onSaved = onSaved;
+        this.log = log;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.template = new String(resource("uploader/index.html"), StandardCharsets.UTF_8);
+        this.viewerJs = resource("uploader/viewer.js");
+        this.assetsTag = Integer.toHexString(template.hashCode() * 31 + Arrays.hashCode(viewerJs));
+    }
+
+    /**
+     * Starts serving {@code folder} on all interfaces.
+     *
+     * @param maxBytes   upper bound for one upload request
+     * @param renditions store for gallery thumbnails and previews
+     * @param onSaved    receives the files saved by each upload request (on the request thread)
+     * @param log        receives one line per upload and per error
+     */
+    public static UploadServer start(Path folder, int port, long maxBytes, RenditionStore renditions, Consumer<List<Path>> onSaved, Consumer<String> log) throws IOException {
+        Path dir = folder.toAbsolutePath().normalize();
+        Files.createDirectories(dir);
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 0);
+        UploadServer s = new UploadServer(http, dir, maxBytes, renditions, onSaved, log);
+        http.createContext("/", s::handle);
+        http.setExecutor(s.executor);
+        http.start();
+        log.accept("Upload server running on port " + s.port() + " -> " + dir);
+        return s;
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    public Path folder() { return folder; }
+
+    /**
+     * Stops accepting connections and returns at once, so it can be called from the FX thread; requests in flight
+     * get up to a second to finish on a background thread.
+     */
+    @Override
+    public void close() {
+        Thread t = new Thread(() -> { server.stop(1); executor.shutdownNow(); }, "upload-server-stop");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            String method = ex.getRequestMethod();
+            String path = ex.getRequestURI().getRawPath();
+            if ("POST".equals(method) && "/".equals(path)) upload(ex);
+            else if (!"GET".equals(method) && !"HEAD".equals(method)) sendText(ex, 405, "Method not allowed");
+            else if ("/".equals(path)) sendIndex(ex);
+            else if ("/viewer.js".equals(path)) sendCached(ex, "application/javascript; charset=utf-8", viewerJs, "\"" + assetsTag + "\"");
+            else if (path.startsWith("/thumb/")) sendRendition(ex, decode(path, "/thumb/"), RenditionStore.Kind.THUMB);
+            else if (path.startsWith("/preview/")) sendRendition(ex, decode(path, "/preview/"), RenditionStore.Kind.PREVIEW);
+            else sendOriginal(ex, decode(path, "/"));
+        } catch (IOException | RuntimeException e) {
+            log.accept("Request failed: " + e);
+        }
+    }
+
+    private void upload(HttpExchange ex) throws IOException {
+        String boundary = MultipartReader.boundary(ex.getRequestHeaders().getFirst("Content-Type"));
+        if (boundary == null) { sendText(ex, 400, "Expected multipart/form-data"); return; }
+        long declared = parseLong(ex.getRequestHeaders().getFirst("Content-Length"));
+        if (declared > maxBytes) { sendText(ex, 413, "Request too large"); return; }
+        List<Path> saved = new ArrayList<>();
+        int skipped = 0;
+        String error = null;
+        try {
+            MultipartReader reader = new MultipartReader(new LimitedInputStream(ex.getRequestBody(), maxBytes), boundary, BUFFER_SIZE);
+            for (MultipartReader.Part part; (part = reader.next()) != null; ) {
+                if (!"files".equals(part.name()) || part.filename() == null || part.filename().isEmpty()) continue;
+                Path p = save(part);
+                if (p != null) saved.add(p); else skipped++;
+            }
+        } catch (TooLargeException e) {
+            error = "Request too large";
+        } catch (IOException e) {
+            error = "Upload failed: " + e.getMessage();
+        } finally {
+            // whatever was completely written is kept and goes straight into the slideshow
+            if (!saved.isEmpty()) {
+                listing.invalidate();
+                renditions.warm(saved);
+                onSaved.accept(saved);
+            }
+        }
+        String who = ex.getRemoteAddress() == null ? "?" : ex.getRemoteAddress().getAddress().getHostAddress();
+        log.accept(String.format("Saved %d file(s) from %s%s%s", saved.size(), who, skipped > 0 ? ", skipped " + skipped + " non-image part(s)" : "", error != null ? " (" + error + ")" : ""));
+        if (error != null && saved.isEmpty()) { sendText(ex, error.startsWith("Request too large") ? 413 : 400, error); return; }
+        ex.getResponseHeaders().set("Location", "/");
+        sendText(ex, 303, "Saved " + saved.size() + " file(s)");
+    }
+
+    // Streams one file part into a temp file next to its destination; null if the content is not a supported image.
+    private Path save(MultipartReader.Part part) throws IOException {
+        InputStream body = part.body();
+        byte[] head = body.readNBytes(32);
+        String kind = extensionFor(ImageValidator.sniff(head, head.length));
+        if (kind == null) return null; // the rest of the part is skipped by the reader
+        Path tmp = Files.createTempFile(folder, ".upload-", ".part"); // hidden and not an image extension: ignored by the index
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                out.write(head);
+                byte[] buf = new byte[BUFFER_SIZE];
+                for (int n; (n = body.read(buf)) >= 0; ) out.write(buf, 0, n);
+            }
+            String name = safeFilename(part.filename(), kind);
+            synchronized (nameLock) {
+                Path target = uniqueTarget(name);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                return target;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Path uniqueTarget(String name) {
+        int dot = name.lastIndexOf('.');
+        String base = name.substring(0, dot), ext = name.substring(dot);
+        Path target = folder.resolve(name);
+        for (int i = 1; Files.exists(target); i++) target = folder.resolve(base + "_" + i + ext);
+        return target;
+    }
+
+    private static String extensionFor(ImageValidator.Format format) {
+        return switch (format) {
+            case JPEG -> "jpg";
+            case PNG -> "png";
+            case GIF -> "gif";
+            case BMP -> "bmp";
+            case WEBP -> "webp";
+            default -> null;
+        };
+    }
+
+    /** Keeps letters, digits, '-', '_' and one extension dot; the extension is forced to the detected {@code kind}. */
+    static String safeFilename(String name, String kind) {
+        name = name.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1);
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.') sb.append(c);
+            else if (c == ' ') sb.append('_');
+        }
+        String fn = sb.toString();
+        int dot = fn.lastIndexOf('.');
+        String base = dot >= 0 ? fn.substring(0, dot).replace('.', '_') : fn;
+        String ext = dot >= 0 ? fn.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        if (base.isEmpty()) base = "file";
+        if (!ext.equals(kind) && !(kind.equals("jpg") && ext.equals("jpeg"))) ext = kind;
+        return base + "." + ext;
+    }
+
+    private Path resolveImage(String relative) {
+        Path file = folder.resolve(relative).normalize();
+        return file.startsWith(folder) && ALLOWED_EXT.contains(extension(file)) && Files.isRegularFile(file) ? file : null;
+    }
+
+    private void sendOriginal(HttpExchange ex, String relative) throws IOException {
+        Path file = resolveImage(relative);
+        if (file == null) { sendText(ex, 404, "Not found"); return; }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        String etag = "\"" + version(attrs) + "\"";
+        sendFile(ex, file, contentType(extension(file)), etag, attrs.lastModifiedTime().toMillis(), "no-cache");
+    }
+
+    // Renditions are derived from the original, so the original's version validates them. Links carry ?v=<version>,
+    // which makes a matching response safe to cache forever; a stale v still gets the current rendition.
+    private void sendRendition(HttpExchange ex, String relative, RenditionStore.Kind kind) throws IOException {
+        Path file = resolveImage(relative);
+        if (file == null) { sendText(ex, 404, "Not found"); return; }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        String version = version(attrs);
+        String cache = version.equals(query(ex.getRequestURI().getRawQuery()).get("v")) ? "public, max-age=31536000, immutable" : "no-cache";
+        String etag = "\"" + kind.name().toLowerCase(Locale.ROOT) + "-" + version + "\"";
+        if (notModified(ex, etag, attrs.lastModifiedTime().toMillis(), cache)) return;
+        Path rendition = renditions.get(file, kind);
+        if (rendition == null) sendFile(ex, file, contentType(extension(file)), etag, attrs.lastModifiedTime().toMillis(), cache);
+        else sendFile(ex, rendition, "image/jpeg", etag, attrs.lastModifiedTime().toMillis(), cache);
+    }
+
+    private static String version(BasicFileAttributes attrs) {
+        return Long.toHexString(attrs.lastModifiedTime().toMillis()) + "-" + Long.toHexString(attrs.size());
+    }
+
+    // Answers 304 if the client's copy is current (If-None-Match wins over If-Modified-Since, per RFC 9110).
+    // lastModified < 0: the response has no date, so If-Modified-Since is ignored.
+    private static boolean notModified(HttpExchange ex, String etag, long lastModified, String cacheControl) throws IOException {
+        Headers req = ex.getRequestHeaders();
+        String inm = req.getFirst("If-None-Match");
+        boolean fresh;
+        if (inm != null) fresh = matchesEtag(inm, etag);
+        else if (lastModified < 0) fresh = false; // no date to compare: only the ETag can validate
+        else {
+            long since = parseHttpDate(req.getFirst("If-Modified-Since"));
+            fresh = since >= 0 && lastModified / 1000 <= since / 1000;
+        }
+        if (!fresh) return false;
+        Headers res = ex.getResponseHeaders();
+        res.set("ETag", etag);
+        res.set("Cache-Control", cacheControl);
+        ex.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    /** Streams a file with validators and single byte-range support (206 / 416), honouring If-Range. */
+    private static void sendFile(HttpExchange ex, Path file, String contentType, String etag, long lastModified, String cacheControl) throws IOException {
+        if (notModified(ex, etag, lastModified, cacheControl)) return;
+        Headers res = ex.getResponseHeaders();
+        res.set("Content-Type", contentType);
+        res.set("ETag", etag);
+        res.set("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(lastModified)));
+        res.set("Cache-Control", cacheControl);
+        res.set("Accept-Ranges", "bytes");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size(), start = 0, end = size - 1;
+            int status = 200;
+            String range = ex.getRequestHeaders().getFirst("Range");
+            String ifRange = ex.getRequestHeaders().getFirst("If-Range");
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                long[] r = parseRange(range, size);
+                if (r == null) {
+                    res.set("Content-Range", "bytes */" + size);
+                    ex.sendResponseHeaders(416, -1);
+                    return;
+                }
+                if (r.length == 2) {
+                    start = r[0];
+                    end = r[1];
+                    status = 206;
+                    res.set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+                }
+            }
+            long length = end - start + 1;
+            boolean head = "HEAD".equals(ex.getRequestMethod());
+            ex.sendResponseHeaders(status, head ? -1 : length == 0 ? -1 : length);
+            if (head || length == 0) return;
+            try (OutputStream out = ex.getResponseBody()) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (long pos = start; pos <= end; ) pos += ch.transferTo(pos, end + 1 - pos, target);
+            }
+        }
+    }
+
+    // {start, end} for a satisfiable single range, {} to ignore the header (multi-range / malformed), null for 416.
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            long start, end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                if (start >= size) return null;
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+                if (end < start) return new long[0];
+            }
+            return size > 0 ? new long[] {start, end} : null;
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    static boolean matchesEtag(String header, String etag) {
+        if (header.trim().equals("*")) return true;
+        for (String tag : header.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag) || ("W/" + t).equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static long parseHttpDate(String value) {
+        if (value == null) return -1;
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private void sendCached(HttpExchange ex, String contentType, byte[] body, String etag) throws IOException {
+        if (notModified(ex, etag, -1, "public, max-age=3600")) return;
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+        send(ex, 200, contentType, body);
+    }
+
+    private void sendIndex(HttpExchange ex) throws IOException {
+        Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+        String lang = pickLang(query.get("lang"), ex.getRequestHeaders());
+        Map<String, String> t = TRANSLATIONS.get(lang);
+        GalleryListing.Snapshot snapshot = listing.snapshot();
+        List<GalleryListing.Entry> images = snapshot.entries();
+        int total = images.size();
+        int totalPages = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+        int page = Math.min(totalPages, Math.max(1, (int) Math.min(Integer.MAX_VALUE, parseLong(query.get("page")))));
+        String etag = "W/\"" + snapshot.hash() + "-" + assetsTag + "-" + lang + "-" + page + "\"";
+        if (notModified(ex, etag, -1, "no-cache")) return;
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        StringBuilder gallery = new StringBuilder();
+        for (GalleryListing.Entry img : images.subList((page - 1) * PAGE_SIZE, Math.min(total, page * PAGE_SIZE))) {
+            String esc = html(img.name()), url = URLEncoder.encode(img.name(), StandardCharsets.UTF_8).replace("+", "%20"), v = "?v=" + img.version();
+            gallery.append("<div class=\"thumb\"><a href=\"/preview/").append(url).append(v).append("\" data-fn=\"").append(esc).append("\" data-original=\"/").append(url).append("\" aria-label=\"Open ").append(esc).append("\">")
+                    .append("<img loading=\"lazy\" src=\"/thumb/").append(url).append(v).append("\" alt=\"").append(esc).append("\"></a><div class=\"cap\" title=\"").append(esc).append("\">").append(esc).append("</div></div>\n");
+        }
+        if (total == 0) gallery.append("<p class=\"empty\">").append(html(t.get("no_images"))).append("</p>");
+        String count = String.valueOf(total), plural = total == 1 ? "" : "s";
+        Map<String, String> vars = new HashMap<>();
+        vars.put("lang", lang);
+        vars.put("page_title", html(t.get("title")));
+        vars.put("heading_suffix", fill(t.get("heading_files_suffix"), "count", count, "plural", plural));
+        vars.put("switch_links", "<div style=\"font-size:.65rem;opacity:.65;margin-left:auto;\"><a href=\"?lang=en\" style=\"color:#7aa7d6;text-decoration:none;\">EN</a> | <a href=\"?lang=fr\" style=\"color:#7aa7d6;text-decoration:none;\">FR</a></div>");
+        vars.put("choose_files_aria", html(t.get("choose_files_aria")));
+        vars.put("upload_btn_aria", html(t.get("upload_btn_aria")));
+        vars.put("upload_label", html(t.get("upload_btn")));
+        vars.put("notice", fill(t.get("allowed_notice"), "ext", String.join(", ", new TreeSet<>(ALLOWED_EXT)), "size", String.valueOf(maxBytes / 1024 / 1024)));
+        vars.put("nav_html", pagination(t, lang, page, totalPages));
+        vars.put("gallery", gallery.toString());
+        vars.put("footer", fill(t.get("footer"), "count", count, "plural", plural));
+        StringBuilder out = new StringBuilder(template.length() + gallery.length());
+        int i = 0;
+        for (int open; (open = template.indexOf("{{", i)) >= 0; ) {
+            int close = template.indexOf("}}", open);
+            out.append(template, i, open).append(vars.getOrDefault(template.substring(open + 2, close), ""));
+            i = close + 2;
+        }
+        out.append(template, i, template.length());
+        send(ex, 200, "text/html; charset=utf-8", out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pagination(Map<String, String> t, String lang, int page, int totalPages) {
+        if (totalPages <= 1) return "";
+        List<String> parts = new ArrayList<>();
+        parts.add(pageLink(lang, 1, t.get("pg_first"), page == 1));
+        parts.add(pageLink(lang, page - 1, t.get("pg_prev"), page == 1));
+        int lo = Math.max(1, page - 2), hi = Math.min(totalPages, page + 2);
+        if (lo > 2) parts.add("<span class=\"pg ell\">…</span>");
+        for (int p = lo; p <= hi; p++) parts.add(p == page ? "<span class=\"pg current\" aria-current=\"page\">" + p + "</span>" : pageLink(lang, p, null, false));
+        if (hi < totalPages - 1) parts.add("<span class=\"pg ell\">…</span>");
+        parts.add(pageLink(lang, page + 1, t.get("pg_next"), page == totalPages));
+        parts.add(pageLink(lang, totalPages, t.get("pg_last"), page == totalPages));
+        return "<nav class=\"pagination\" aria-label=\"Pages\">" + String.join("\n", parts)
+                + "<span class=\"pg meta\">" + html(fill(t.get("pg_page_meta"), "cur", String.valueOf(page), "total", String.valueOf(totalPages))) + "</span></nav>";
+    }
+
+    private static String pageLink(String lang, int p, String label, boolean disabled) {
+        String text = html(label != null ? label : String.valueOf(p));
+        if (disabled) return "<span class=\"pg disabled\" aria-disabled=\"true\">" + text + "</span>";
+        return "<a class=\"pg\" href=\"?lang=" + lang + "&page=" + p + "\">" + text + "</a>";
+    }
+
+    private static String pickLang(String queryLang, Headers headers) {
+        if (queryLang != null && TRANSLATIONS.containsKey(queryLang.toLowerCase(Locale.ROOT))) return queryLang.toLowerCase(Locale.ROOT);
+        String accept = headers.getFirst("Accept-Language");
+        return accept != null && accept.toLowerCase(Locale.ROOT).startsWith("fr") ? "fr" : "en";
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null) return out;
+        for (String kv : raw.split("&")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0) out.putIfAbsent(URLDecoder.decode(kv.substring(0, eq), StandardCharsets.UTF_8).toLowerCase(Locale.ROOT), URLDecoder.decode(kv.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static String decode(String rawPath, String prefix) {
+        return URLDecoder.decode(rawPath.substring(prefix.length()).replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static String fill(String pattern, String... kv) {
+        for (int i = 0; i + 1 < kv.length; i += 2) pattern = pattern.replace("{" + kv[i] + "}", kv[i + 1]);
+        return pattern;
+    }
+
+    private static String html(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#x27;");
+    }
+
+    private static String extension(Path p) {
+        String name = p.getFileName() == null ? "" : p.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String contentType(String ext) {
+        return switch (ext) {
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "gif" -> "image/gif";
+            case "bmp" -> "image/bmp";
+            case "webp" -> "image/webp";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static long parseLong(String s) {
+        try { return s == null ? -1 : Long.parseLong(s.trim()); } catch (NumberFormatException e) { return -1; }
+    }
+
+    private static void sendText(HttpExchange ex, int status, String text) throws IOException {
+        send(ex, status, "text/plain; charset=utf-8", text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        boolean head = "HEAD".equals(ex.getRequestMethod());
+        ex.sendResponseHeaders(status, head || body.length == 0 ? -1 : body.length);
+        if (head || body.length == 0) return;
+        try (OutputStream out = ex.getResponseBody()) { out.write(body); }
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = UploadServer.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("missing resource " + name);
+            return in.readAllBytes();
+        }
+    }
+
+    private static final class TooLargeException extends IOException {
+        TooLargeException() { super("request too large"); }
+    }
+
+    // Enforces the request cap for chunked bodies, which carry no Content-Length.
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --remaining < 0) throw new TooLargeException();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && (remaining -= n) < 0) throw new TooLargeException();
+            return n;
+        }
+    }
+}
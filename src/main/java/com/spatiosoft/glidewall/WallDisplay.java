@@ -0,0 +1,62 @@
+package com.spatiosoft.glidewall;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.stage.Window;
+
+/**
+ * One extra screen of a video wall: a borderless full-screen window with its own {@link TransitionEngine}. It owns
+ * no index, watcher or decoder; the engine picks its slides from the shared play order.
+ */
+public class WallDisplay {
+    private final Screen screen;
+    private final Stage stage;
+    private final TransitionEngine transitions;
+
+    public WallDisplay(Screen screen, Window owner, GlideWallMetrics metrics, TransitionEngine.Transition transition, long millis, FramePool frames) {
+        this.screen = screen;
+        Rectangle2D b = screen.getBounds();
+        ImageView view = new ImageView();
+        view.setPreserveRatio(true);
+        view.setSmooth(true);
+        StackPane pane = new StackPane(view);
+        pane.setStyle("-fx-background-color: black;");
+        pane.setMinSize(0, 0);
+        view.fitWidthProperty().bind(pane.widthProperty());
+        view.fitHeightProperty().bind(pane.heightProperty());
+        transitions = new TransitionEngine(pane, view, metrics, transition, millis, frames);
+        stage = new Stage(StageStyle.UNDECORATED);
+        stage.initOwner(owner);
+        stage.setTitle("GlideWall wall");
+        stage.setScene(new Scene(pane, b.getWidth(), b.getHeight(), Color.BLACK));
+        // placed on its screen first, so full-screen mode picks that screen
+        stage.setX(b.getMinX());
+        stage.setY(b.getMinY());
+        stage.setFullScreenExitHint("");
+        stage.setFullScreenExitKeyCombination(KeyCombination.NO_MATCH);
+        stage.setFullScreen(true);
+    }
+
+    public void open() { stage.show(); }
+
+    public void close() { stage.close(); }
+
+    /** Size of the screen in device pixels, the bounds slides should be decoded for. */
+    public double pixelWidth() { return screen.getBounds().getWidth() * screen.getOutputScaleX(); }
+
+    public double pixelHeight() { return screen.getBounds().getHeight() * screen.getOutputScaleY(); }
+
+    /** FX thread. */
+    public void show(Image image) { transitions.show(image); }
+
+    /** FX thread: uploads the texture of the slide this display shows next. */
+    public void preload(Image image) { transitions.preload(image); }
+}
@@ -0,0 +1,162 @@
+package com.spatiosoft.glidewall;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces raw watcher events into one {@link ChangeSet} per burst.
+ * <p>
+ * Events are collected per path until no new event arrived for {@code quietMillis}, or until the oldest pending
+ * event is {@code maxLatencyMillis} old. Created/modified files are only published once their size and mtime
+ * stopped changing, so half-written uploads stay pending until the writer is done.
+ */
+public class WatchEventBatcher {
+    public enum Kind { CREATED, MODIFIED, DELETED, DIRECTORY_CREATED }
+
+    /** One published batch. The lists are disjoint per path. */
+    public record ChangeSet(List<Path> created, List<Path> modified, List<Path> deleted, List<Path> createdDirs, List<Path> rescanDirs) {
+        public boolean isEmpty() { return created.isEmpty() && modified.isEmpty() && deleted.isEmpty() && createdDirs.isEmpty() && rescanDirs.isEmpty(); }
+        public int size() { return created.size() + modified.size() + deleted.size() + createdDirs.size() + rescanDirs.size(); }
+    }
+
+    private static final class Pending {
+        Kind kind;
+        long probedSize = -1;
+        long probedMtime = -1;
+        Pending(Kind kind) { this.kind = kind; }
+    }
+
+    private final ScheduledExecutorService timer;
+    private final long quietMillis;
+    private final long maxLatencyMillis;
+    private final Consumer<ChangeSet> sink;
+
+    private final Object sinkLock = new Object();
+    private final Map<Path, Pending> pending = new LinkedHashMap<>();
+    private final Set<Path> rescans = new LinkedHashSet<>();
+    private long firstEventAt = -1;
+    private long lastEventAt = -1;
+    private ScheduledFuture<?> flushTask;
+    private boolean closed = false;
+    private final LongAdder events = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public WatchEventBatcher(ScheduledExecutorService timer, long quietMillis, long maxLatencyMillis, Consumer<ChangeSet> sink) {
+        this.timer = timer;
+        this.quietMillis = Math.max(0, quietMillis);
+        this.maxLatencyMillis = Math.max(this.quietMillis, maxLatencyMillis);
+        this.sink = sink;
+    }
+
+    public synchronized void event(Kind kind, Path path) {
+        if (closed) return;
+        events.increment();
+        Pending p = pending.get(path);
+        if (p == null) pending.put(path, new Pending(kind));
+        else if (!(kind == Kind.MODIFIED && (p.kind == Kind.CREATED || p.kind == Kind.DIRECTORY_CREATED))) p.kind = kind;
+        touch();
+    }
+
+    /** Requests a re-listing of {@code dir} because its events were lost (overflow / invalid key). */
+    public synchronized void rescan(Path dir) {
+        if (closed) return;
+        events.increment();
+        rescans.add(dir);
+        touch();
+    }
+
+    public synchronized int pendingCount() { return pending.size() + rescans.size(); }
+
+    /** Raw events (including rescan requests) received so far. */
+    public long eventCount() { return events.sum(); }
+
+    /** Change sets published to the sink so far. */
+    public long batchCount() { return batches.sum(); }
+
+    public synchronized void close() {
+        closed = true;
+        if (flushTask != null) flushTask.cancel(false);
+        pending.clear();
+        rescans.clear();
+    }
+
+    private void touch() {
+        long now = System.currentTimeMillis();
+        if (firstEventAt < 0) firstEventAt = now;
+        lastEventAt = now;
+        if (flushTask == null) schedule(quietMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        flushTask = timer.schedule(this::tick, Math.max(1, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        // Ticks are serialized so batches reach the sink in the order they were drained.
+        synchronized (sinkLock) {
+            ChangeSet out;
+            synchronized (this) {
+                flushTask = null;
+                if (closed || (pending.isEmpty() && rescans.isEmpty())) { firstEventAt = -1; return; }
+                long now = System.currentTimeMillis();
+                long quietDue = lastEventAt + quietMillis;
+                long latencyDue = firstEventAt + maxLatencyMillis;
+                if (now < quietDue && now < latencyDue) { schedule(Math.min(quietDue, latencyDue) - now); return; }
+                out = drainStable(now);
+                firstEventAt = pending.isEmpty() ? -1 : now;
+                if (!pending.isEmpty()) schedule(quietMillis); // writers still busy: probe again after another quiet window
+            }
+            if (!out.isEmpty()) { batches.increment(); sink.accept(out); }
+        }
+    }
+
+    private ChangeSet drainStable(long now) {
+        List<Path> created = new ArrayList<>(), modified = new ArrayList<>(), deleted = new ArrayList<>(), dirs = new ArrayList<>();
+        for (Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Pending> e = it.next();
+            Pending p = e.getValue();
+            switch (p.kind) {
+                case DELETED -> deleted.add(e.getKey());
+                case DIRECTORY_CREATED -> dirs.add(e.getKey());
+                case CREATED, MODIFIED -> {
+                    if (!isStable(e.getKey(), p, now)) continue;
+                    (p.kind == Kind.CREATED ? created : modified).add(e.getKey());
+                }
+            }
+            it.remove();
+        }
+        List<Path> rescanDirs = new ArrayList<>(rescans);
+        rescans.clear();
+        return new ChangeSet(created, modified, deleted, dirs, rescanDirs);
+    }
+
+    // Stable = unchanged since the previous probe, or last written more than a quiet window ago.
+    private boolean isStable(Path file, Pending p, long now) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return true; // vanished meanwhile; the index ignores or the delete event follows
+        }
+        if (attrs.isDirectory()) return true;
+        long size = attrs.size(), mtime = attrs.lastModifiedTime().toMillis();
+        boolean stable = (size == p.probedSize && mtime == p.probedMtime) || (p.probedSize < 0 && size > 0 && now - mtime >= quietMillis);
+        p.probedSize = size;
+        p.probedMtime = mtime;
+        return stable;
+    }
+}
@@ -2,9 +2,10 @@ module com.spatiosoft.glidewall {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires java.management; // metrics MXBean
+    requires jdk.httpserver; // local metrics endpoint
     requires javafx.swing; // for SwingFXUtils
     requires com.google.zxing; // QR core
-    requires com.google.zxing.javase; // QR helpers (MatrixToImageWriter)
 
     opens com.spatiosoft.glidewall to javafx.fxml;
     exports com.spatiosoft.glidewall;
@@ -13,7 +13,9 @@
   ready(function(){
     const thumbLinks = Array.from(document.querySelectorAll('.gallery .thumb a'));
     if(!thumbLinks.length) return;
+    // Links point at screen-sized previews; the original stays reachable via data-original.
     const imageUrls = thumbLinks.map(a => a.getAttribute('href'));
+    const captions = thumbLinks.map(a => a.getAttribute('data-fn') || '');
 
     let current = 0;
     let overlay, imgEl, captionEl, closeBtn, counterEl;
@@ -117,7 +119,7 @@
       current = i;
       const url = imageUrls[i];
       imgEl.src = url;
-      captionEl.textContent = decodeURIComponent(url.split('/').pop());
+      captionEl.textContent = captions[i];
       counterEl.textContent = (i+1) + ' / ' + imageUrls.length;
       // Preload neighbors for smoother nav
       preload((i+1)%imageUrls.length);
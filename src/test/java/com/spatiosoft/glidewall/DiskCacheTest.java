@@ -0,0 +1,85 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskCacheTest {
+    private static final int ENTRY = 100;
+
+    @TempDir Path dir;
+
+    private static Path source(int i) { return Path.of("/photos/img" + i + ".jpg"); }
+
+    private static Path write(DiskCache cache, Path source, String version) throws IOException {
+        Path entry = cache.path(source, version);
+        Files.createDirectories(entry.getParent());
+        Files.write(entry, new byte[ENTRY]);
+        cache.stored(entry);
+        return entry;
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesGoFirst() throws IOException {
+        DiskCache cache = new DiskCache(dir, 3 * ENTRY, ".jpg");
+        Path a = write(cache, source(1), "v1"), b = write(cache, source(2), "v1"), c = write(cache, source(3), "v1");
+        assertEquals(a, cache.get(a)); // b is now the eldest
+        Path d = write(cache, source(4), "v1");
+        assertFalse(Files.exists(b));
+        assertNull(cache.get(b));
+        for (Path kept : new Path[] {a, c, d}) assertTrue(Files.exists(kept), kept.toString());
+        assertEquals(3 * ENTRY, cache.bytes());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void newVersionReplacesTheOldEntry() throws IOException {
+        DiskCache cache = new DiskCache(dir, 10 * ENTRY, ".jpg");
+        Path old = write(cache, source(1), "v1");
+        Path fresh = write(cache, source(1), "v2");
+        assertNotEquals(old, fresh);
+        assertFalse(Files.exists(old));
+        assertEquals(ENTRY, cache.bytes());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void removeDeletesWhatIsStoredForASource() throws IOException {
+        DiskCache cache = new DiskCache(dir, 10 * ENTRY, ".jpg");
+        Path entry = write(cache, source(1), "v1");
+        cache.remove(source(1));
+        assertFalse(Files.exists(entry));
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void reopeningTrimsToTheBudgetOldestFirst() throws IOException {
+        DiskCache first = new DiskCache(dir, 10 * ENTRY, ".jpg");
+        Path[] entries = new Path[4];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = write(first, source(i), "v1");
+            Files.setLastModifiedTime(entries[i], FileTime.fromMillis(1_000_000L * (i + 1)));
+        }
+        Path leftover = first.path(source(3), "v0"); // an older version left behind by a crash
+        Files.write(leftover, new byte[ENTRY]);
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(1));
+
+        DiskCache reopened = new DiskCache(dir, 2 * ENTRY, ".jpg");
+        assertEquals(entries[3], reopened.get(entries[3])); // the first use lists the directory
+        assertEquals(2 * ENTRY, reopened.bytes());
+        assertFalse(Files.exists(leftover));
+        assertFalse(Files.exists(entries[0]));
+        assertFalse(Files.exists(entries[1]));
+        assertTrue(Files.exists(entries[2]));
+    }
+}
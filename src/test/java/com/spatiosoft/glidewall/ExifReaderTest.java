@@ -0,0 +1,95 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExifReaderTest {
+    private static final long TAKEN = Instant.parse("2023-06-01T10:30:00Z").toEpochMilli();
+
+    @TempDir Path dir;
+
+    // IFD0 with Orientation and an EXIF pointer; the EXIF IFD holds DateTimeOriginal and OffsetTimeOriginal.
+    private static byte[] tiff(ByteOrder order, int orientation) {
+        ByteBuffer b = ByteBuffer.allocate(96).order(order);
+        b.put(order == ByteOrder.BIG_ENDIAN ? (byte) 'M' : (byte) 'I').put(b.get(0)).putShort((short) 42).putInt(8);
+        b.putShort((short) 2);
+        b.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        b.putShort((short) 0x8769).putShort((short) 4).putInt(1).putInt(38);
+        b.putInt(0);
+        b.putShort((short) 2);
+        b.putShort((short) 0x9003).putShort((short) 2).putInt(20).putInt(68);
+        b.putShort((short) 0x9011).putShort((short) 2).putInt(7).putInt(88);
+        b.putInt(0);
+        b.put("2023:06:01 12:30:00\0".getBytes(StandardCharsets.US_ASCII));
+        b.put("+02:00\0".getBytes(StandardCharsets.US_ASCII));
+        return Arrays.copyOf(b.array(), b.position());
+    }
+
+    private static void segment(ByteArrayOutputStream out, int type, byte[] payload) {
+        out.write(0xFF);
+        out.write(type);
+        out.write((payload.length + 2) >> 8);
+        out.write(payload.length + 2);
+        out.writeBytes(payload);
+    }
+
+    private Path jpeg(byte[] tiff) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        ByteArrayOutputStream app1 = new ByteArrayOutputStream();
+        app1.writeBytes("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        app1.writeBytes(tiff);
+        segment(out, 0xE1, app1.toByteArray());
+        segment(out, 0xDB, new byte[65]); // quantization table, skipped
+        segment(out, 0xC0, new byte[] {8, 0x01, (byte) 0xE0, 0x02, (byte) 0x80, 3, 1, 0x22, 0, 2, 0x11, 1, 3, 0x11, 1}); // 640 x 480
+        out.writeBytes(new byte[] {(byte) 0xFF, (byte) 0xDA});
+        return Files.write(dir.resolve("photo.jpg"), out.toByteArray());
+    }
+
+    @Test
+    void headerFieldsInEitherByteOrder() throws IOException {
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ExifReader.Exif exif = ExifReader.read(jpeg(tiff(order, 6)));
+            assertEquals(new ExifReader.Exif(6, TAKEN, 640, 480), exif, order.toString());
+            assertTrue(exif.transposed());
+        }
+    }
+
+    @Test
+    void invalidOrientationReadsAsUpright() throws IOException {
+        assertEquals(1, ExifReader.orientation(jpeg(tiff(ByteOrder.BIG_ENDIAN, 42))));
+    }
+
+    @Test
+    void damagedOrForeignFilesHaveNoHeaderFields() throws IOException {
+        byte[] whole = Files.readAllBytes(jpeg(tiff(ByteOrder.BIG_ENDIAN, 6)));
+        assertSame(ExifReader.Exif.NONE, ExifReader.read(Files.write(dir.resolve("cut.jpg"), Arrays.copyOf(whole, 40))));
+        assertSame(ExifReader.Exif.NONE, ExifReader.read(Files.write(dir.resolve("a.png"), new byte[] {(byte) 0x89, 'P', 'N', 'G'})));
+        assertSame(ExifReader.Exif.NONE, ExifReader.read(dir.resolve("missing.jpg")));
+    }
+
+    @Test
+    void pixelsAreTurnedIntoDisplayOrientation() {
+        int[] stored = {1, 2, 3, 4, 5, 6}; // 3 x 2
+        assertSame(stored, ExifReader.orient(stored, 3, 2, 1));
+        assertArrayEquals(new int[] {6, 5, 4, 3, 2, 1}, ExifReader.orient(stored, 3, 2, 3));
+        assertArrayEquals(new int[] {4, 1, 5, 2, 6, 3}, ExifReader.orient(stored, 3, 2, 6)); // 2 x 3, turned clockwise
+        assertArrayEquals(new int[] {3, 6, 2, 5, 1, 4}, ExifReader.orient(stored, 3, 2, 8)); // 2 x 3, turned counter-clockwise
+    }
+}
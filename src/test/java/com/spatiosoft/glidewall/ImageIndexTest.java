@@ -0,0 +1,103 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageIndexTest {
+    @TempDir Path root;
+
+    private Path file(String relative) throws IOException {
+        Path p = root.resolve(relative);
+        Files.createDirectories(p.getParent());
+        return Files.write(p, new byte[] {1, 2, 3});
+    }
+
+    @Test
+    void fullScanFindsImagesAndSkipsHiddenFolders() throws IOException {
+        Path a = file("a.jpg"), b = file("sub/b.PNG");
+        file("notes.txt");
+        file(".thumbs/a.jpg");
+        ImageIndex index = new ImageIndex(root);
+        IndexDiff diff = index.fullScan();
+        assertEquals(Set.of(a, b), new HashSet<>(diff.added()));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void fullScanReconcilesSeededFiles() throws IOException {
+        Path kept = file("kept.jpg");
+        Path gone = root.resolve("gone.jpg");
+        ImageIndex index = new ImageIndex(root);
+        index.seed(List.of(kept, gone));
+        IndexDiff diff = index.fullScan();
+        assertEquals(List.of(gone), diff.removed());
+        assertTrue(diff.added().isEmpty());
+        assertEquals(List.of(kept), index.snapshot());
+    }
+
+    @Test
+    void createEventForAKnownUnchangedFileIsANoOp() throws IOException {
+        ImageIndex index = new ImageIndex(root);
+        index.fullScan();
+        Path f = file("upload.jpg");
+        assertEquals(List.of(f), index.fileCreated(f).added());
+        assertTrue(index.fileCreated(f).isEmpty());
+        Files.write(f, new byte[] {1, 2, 3, 4});
+        assertEquals(List.of(f), index.fileCreated(f).modified());
+    }
+
+    @Test
+    void createEventForAVanishedFileIsIgnored() throws IOException {
+        ImageIndex index = new ImageIndex(root);
+        index.fullScan();
+        assertTrue(index.fileCreated(root.resolve("never-written.jpg")).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void deletingADirectoryRemovesItsSubtree() throws IOException {
+        Path a = file("d/a.jpg"), b = file("d/e/b.jpg");
+        file("c.jpg");
+        ImageIndex index = new ImageIndex(root);
+        index.fullScan();
+        assertEquals(Set.of(a, b), new HashSet<>(index.pathDeleted(root.resolve("d")).removed()));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void watcherDeltasDuringAFullScanWin() throws Exception {
+        for (int i = 0; i < 2000; i++) file("bulk/" + i + ".jpg"); // makes the unlocked walk take a while
+        ExecutorService scanner = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 20; round++) {
+                Path deleted = file("deleted-" + round + ".jpg");
+                ImageIndex index = new ImageIndex(root);
+                index.fullScan();
+                Future<IndexDiff> scan = scanner.submit(index::fullScan);
+                Path created = file("created-" + round + ".jpg");
+                index.fileCreated(created);
+                Files.delete(deleted);
+                index.pathDeleted(deleted);
+                scan.get();
+                assertFalse(index.contains(deleted), "a walk that saw the deleted file brought it back");
+                assertTrue(index.contains(created), "a walk that missed the new file dropped it");
+            }
+        } finally {
+            scanner.shutdownNow();
+        }
+    }
+}
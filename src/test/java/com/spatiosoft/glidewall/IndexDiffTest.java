@@ -0,0 +1,83 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexDiffTest {
+    private static final Path A = Path.of("/r/a.jpg"), B = Path.of("/r/b.jpg"), C = Path.of("/r/c.jpg");
+
+    private static IndexDiff added(Path... p) { return new IndexDiff(List.of(p), List.of(), List.of()); }
+
+    private static IndexDiff removed(Path... p) { return new IndexDiff(List.of(), List.of(p), List.of()); }
+
+    private static IndexDiff modified(Path... p) { return new IndexDiff(List.of(), List.of(), List.of(p)); }
+
+    @Test
+    void createThenDeleteCancelsOut() {
+        assertTrue(added(A).merge(removed(A)).isEmpty());
+    }
+
+    @Test
+    void deleteThenCreateIsAModification() {
+        assertEquals(modified(A), removed(A).merge(added(A)));
+    }
+
+    @Test
+    void modificationOfANewFileStaysAnAddition() {
+        assertEquals(added(A), added(A).merge(modified(A)));
+    }
+
+    @Test
+    void deleteAfterModificationIsADelete() {
+        assertEquals(removed(A), modified(A).merge(removed(A)));
+    }
+
+    @Test
+    void emptySidesAreReturnedAsIs() {
+        IndexDiff d = added(A, B);
+        assertSame(d, d.merge(IndexDiff.EMPTY));
+        assertSame(d, IndexDiff.EMPTY.merge(d));
+        assertSame(d, d.merge(null));
+        assertSame(IndexDiff.EMPTY, new IndexDiff.Builder().add(added(C)).add(removed(C)).build());
+    }
+
+    // Random histories of create / modify / delete events that could really happen, starting from A only.
+    @Test
+    void builderMatchesPairwiseMergesAndNetChange() {
+        Random random = new Random(7);
+        Path[] files = {A, B, C};
+        for (int round = 0; round < 500; round++) {
+            Set<Path> before = Set.of(A), exists = new HashSet<>(before);
+            List<IndexDiff> diffs = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Path p = files[random.nextInt(files.length)];
+                if (!exists.contains(p)) { exists.add(p); diffs.add(added(p)); }
+                else if (random.nextBoolean()) { exists.remove(p); diffs.add(removed(p)); }
+                else diffs.add(modified(p));
+            }
+            IndexDiff merged = IndexDiff.EMPTY;
+            IndexDiff.Builder builder = new IndexDiff.Builder();
+            for (IndexDiff d : diffs) { merged = merged.merge(d); builder.add(d); }
+            IndexDiff built = builder.build();
+            String history = diffs.toString();
+            assertEquals(new HashSet<>(merged.added()), new HashSet<>(built.added()), history);
+            assertEquals(new HashSet<>(merged.removed()), new HashSet<>(built.removed()), history);
+            assertEquals(new HashSet<>(merged.modified()), new HashSet<>(built.modified()), history);
+            Set<Path> after = new HashSet<>(before);
+            after.removeAll(built.removed());
+            after.addAll(built.added());
+            assertEquals(exists, after, history);
+            for (Path p : built.modified()) assertTrue(before.contains(p) && exists.contains(p), history);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataCatalogTest {
+    @TempDir Path root;
+    @TempDir Path catalogDir;
+
+    private MetadataCatalog.ImageMeta meta(String name, String rejected) {
+        return new MetadataCatalog.ImageMeta(root.resolve(name), 1234, 1_700_000_000_000L, 640, 480, 6, 1_600_000_000_000L, rejected);
+    }
+
+    private Path catalogFile() throws IOException {
+        try (Stream<Path> s = Files.list(catalogDir)) { return s.filter(p -> p.toString().endsWith(".gwcat")).findFirst().orElseThrow(); }
+    }
+
+    @Test
+    void entriesAndVerdictsSurviveAReopen() throws IOException {
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            c.put(meta("a.jpg", null));
+            c.put(meta("b.jpg", "truncated JPEG"));
+            c.put(meta("c.jpg", null));
+            c.remove(root.resolve("c.jpg"));
+        }
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            assertEquals(2, c.size());
+            assertEquals(meta("a.jpg", null), c.get(root.resolve("a.jpg")));
+            assertTrue(c.get(root.resolve("a.jpg")).passed());
+            assertEquals("truncated JPEG", c.get(root.resolve("b.jpg")).rejected());
+            assertNull(c.get(root.resolve("c.jpg")));
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedAndAppendingContinues() throws IOException {
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            c.put(meta("a.jpg", null));
+            c.put(meta("b.jpg", null));
+        }
+        Path file = catalogFile();
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - 5)); // crash in the middle of the last record
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            assertEquals(Set.of(root.resolve("a.jpg")), new HashSet<>(c.paths()));
+            c.put(meta("c.jpg", null));
+        }
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            assertEquals(Set.of(root.resolve("a.jpg"), root.resolve("c.jpg")), new HashSet<>(c.paths()));
+        }
+    }
+
+    @Test
+    void corruptCatalogIsRebuiltEmpty() throws IOException {
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) { c.put(meta("a.jpg", null)); }
+        Files.write(catalogFile(), "not a catalog".getBytes());
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            assertEquals(0, c.size());
+            c.put(meta("b.jpg", null));
+        }
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) { assertEquals(1, c.size()); }
+    }
+
+    @Test
+    void refreshKeepsTheVerdictForTheCheckedVersion() throws IOException {
+        Path f = Files.write(root.resolve("broken.jpg"), new byte[] {(byte) 0xFF, (byte) 0xD8, 0, 0});
+        try (MetadataCatalog c = MetadataCatalog.open(root, catalogDir)) {
+            MetadataCatalog.ImageMeta rejected = c.refresh(f, "truncated JPEG");
+            assertFalse(rejected.passed());
+            assertEquals(0, rejected.width());
+            assertEquals(4, rejected.size());
+            Files.write(f, new byte[] {(byte) 0xFF, (byte) 0xD8, 0, 0, 0});
+            assertFalse(c.get(f).matches(Files.readAttributes(f, BasicFileAttributes.class)));
+            assertTrue(c.refresh(f, null).passed());
+        }
+    }
+}
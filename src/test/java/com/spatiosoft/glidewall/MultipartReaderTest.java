@@ -0,0 +1,111 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultipartReaderTest {
+    private static final String BOUNDARY = "----glidewall42";
+
+    // Hands out at most {@code chunk} bytes per read, like a slow socket.
+    private static final class Trickle extends FilterInputStream {
+        private final int chunk;
+
+        Trickle(InputStream in, int chunk) { super(in); this.chunk = chunk; }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException { return super.read(b, off, Math.min(len, chunk)); }
+    }
+
+    private static byte[] body(byte[]... files) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("preamble\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"lang\"\r\n\r\nde").getBytes(StandardCharsets.ISO_8859_1));
+        for (int i = 0; i < files.length; i++) {
+            out.writeBytes(("\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"files\"; filename=\"f" + i + ".jpg\"\r\nContent-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.writeBytes(files[i]);
+        }
+        out.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    // Random bytes sprinkled with near-miss delimiters.
+    private static byte[] payload(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        byte[] nearMiss = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1)).getBytes(StandardCharsets.ISO_8859_1);
+        for (int at = 100; at + nearMiss.length < size; at += 997) System.arraycopy(nearMiss, 0, data, at, nearMiss.length);
+        return data;
+    }
+
+    @Test
+    void partsSurviveDelimitersSplitAcrossReads() throws IOException {
+        byte[] first = payload(30_000, 1), second = payload(5, 2);
+        byte[] body = body(first, second);
+        for (int chunk : new int[] {1, 2, 3, 7, 13, 4096, 65_536}) {
+            MultipartReader reader = new MultipartReader(new Trickle(new ByteArrayInputStream(body), chunk), BOUNDARY, 0);
+            MultipartReader.Part lang = reader.next();
+            assertEquals("lang", lang.name());
+            assertNull(lang.filename());
+            assertEquals("de", new String(lang.body().readAllBytes(), StandardCharsets.UTF_8));
+            MultipartReader.Part f0 = reader.next();
+            assertEquals("f0.jpg", f0.filename());
+            assertEquals("image/jpeg", f0.header("Content-Type"));
+            assertArrayEquals(first, f0.body().readAllBytes());
+            MultipartReader.Part f1 = reader.next();
+            assertNotNull(f1);
+            assertArrayEquals(second, f1.body().readAllBytes());
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void unreadBodiesAreSkipped() throws IOException {
+        MultipartReader reader = new MultipartReader(new Trickle(new ByteArrayInputStream(body(payload(20_000, 3), payload(10, 4))), 5), BOUNDARY, 0);
+        reader.next();
+        reader.next();
+        MultipartReader.Part last = reader.next();
+        assertEquals("f1.jpg", last.filename());
+        assertArrayEquals(payload(10, 4), last.body().readAllBytes());
+    }
+
+    @Test
+    void truncatedBodyFails() {
+        byte[] body = body(payload(1000, 5));
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body, 0, body.length - 20), BOUNDARY, 0);
+        assertThrows(EOFException.class, () -> { while (reader.next() != null) {} });
+    }
+
+    @Test
+    void oversizedHeadersFail() {
+        String longLine = "--" + BOUNDARY + "\r\nX-Padding: " + "a".repeat(10_000) + "\r\n\r\nx\r\n--" + BOUNDARY + "--\r\n";
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(longLine.getBytes(StandardCharsets.ISO_8859_1)), BOUNDARY, 0);
+        assertThrows(IOException.class, reader::next);
+        StringBuilder many = new StringBuilder("--" + BOUNDARY + "\r\n");
+        for (int i = 0; i < 400; i++) many.append("X-Header-").append(i).append(": ").append("b".repeat(60)).append("\r\n");
+        many.append("\r\nx\r\n--").append(BOUNDARY).append("--\r\n");
+        MultipartReader tooMany = new MultipartReader(new ByteArrayInputStream(many.toString().getBytes(StandardCharsets.ISO_8859_1)), BOUNDARY, 0);
+        assertThrows(IOException.class, tooMany::next);
+    }
+
+    @Test
+    void boundaryIsReadFromTheContentType() {
+        assertEquals("abc", MultipartReader.boundary("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartReader.boundary("Multipart/Form-Data; charset=utf-8; boundary=\"a b\""));
+        assertNull(MultipartReader.boundary("application/x-www-form-urlencoded"));
+        assertNull(MultipartReader.boundary("multipart/form-data"));
+        assertNull(MultipartReader.boundary(null));
+    }
+}
@@ -0,0 +1,132 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaylistSchedulerTest {
+    private final PlaylistScheduler playlist = new PlaylistScheduler(new Random(42));
+
+    private static List<Path> files(String folder, int count) {
+        List<Path> out = new ArrayList<>();
+        for (int i = 0; i < count; i++) out.add(Path.of("/lib", folder, "img" + i + ".jpg"));
+        return out;
+    }
+
+    private Map<Path, Integer> play(int slides) {
+        Map<Path, Integer> shown = new HashMap<>();
+        for (int i = 0; i < slides; i++) shown.merge(playlist.next(), 1, Integer::sum);
+        return shown;
+    }
+
+    @Test
+    void emptyPlaylistHasNoNextImage() {
+        assertNull(playlist.next());
+        assertTrue(playlist.upcoming(3).isEmpty());
+    }
+
+    @Test
+    void everyImageOncePerCycle() {
+        List<Path> all = files("a", 20);
+        playlist.add(all, false);
+        for (int cycle = 0; cycle < 3; cycle++) assertEquals(new HashSet<>(all), play(20).keySet());
+    }
+
+    @Test
+    void cycleOfOnlyRemovedImagesYieldsNull() {
+        List<Path> all = files("a", 5);
+        playlist.add(all, false);
+        playlist.next();
+        playlist.remove(all);
+        assertNull(playlist.next());
+        assertNull(playlist.current());
+    }
+
+    @Test
+    void removedImagesAreSkippedAndCompacted() {
+        List<Path> all = files("a", 200);
+        playlist.add(all, false);
+        for (int i = 0; i < 50; i++) playlist.next();
+        List<Path> gone = all.subList(0, 150);
+        playlist.remove(gone); // more tombstones than live entries: compacted
+        Set<Path> seen = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            Path p = playlist.next();
+            assertFalse(gone.contains(p), "removed image played: " + p);
+            seen.add(p);
+        }
+        assertEquals(new HashSet<>(all.subList(150, 200)), seen);
+    }
+
+    @Test
+    void newImagesWithPriorityAreShownNext() {
+        playlist.add(files("a", 10), false);
+        playlist.next();
+        List<Path> fresh = files("new", 2);
+        playlist.add(fresh, true);
+        assertEquals(fresh, playlist.upcoming(2));
+        assertEquals(fresh.get(0), playlist.next());
+        assertEquals(fresh.get(1), playlist.next());
+    }
+
+    @Test
+    void folderWeightsScaleShowsPerCycle() {
+        playlist.setFolderWeight(Path.of("/lib/double"), 2);
+        playlist.setFolderWeight(Path.of("/lib/never"), 0);
+        List<Path> doubled = files("double", 5), normal = files("normal", 5), never = files("never", 5);
+        playlist.add(doubled, false);
+        playlist.add(normal, false);
+        playlist.add(never, false);
+        playlist.reshuffle();
+        Map<Path, Integer> shown = play(15 * 4); // four cycles of 10 + 5 slots
+        for (Path p : doubled) assertEquals(8, shown.get(p), p.toString());
+        for (Path p : normal) assertEquals(4, shown.get(p), p.toString());
+        for (Path p : never) assertNull(shown.get(p), p.toString());
+    }
+
+    @Test
+    void imagesAddedMidCycleGetTheirFolderWeight() {
+        playlist.setFolderWeight(Path.of("/lib/double"), 2);
+        playlist.add(files("normal", 10), false);
+        playlist.next();
+        Path late = Path.of("/lib/double/late.jpg");
+        playlist.add(List.of(late), false);
+        assertEquals(2, play(11).get(late)); // the rest of this cycle: 9 + 2 slots
+    }
+
+    @Test
+    void weightZeroEverywhereStillShowsSomething() {
+        playlist.setFolderWeight(Path.of("/lib"), 0);
+        playlist.add(files("a", 3), false);
+        assertNotNull(playlist.next());
+    }
+
+    @Test
+    void sortedCyclesFollowTheKey() {
+        List<Path> all = files("a", 8);
+        Map<Path, Long> key = new HashMap<>();
+        for (int i = 0; i < all.size(); i++) key.put(all.get(i), (long) (all.size() - i));
+        playlist.setOrder(key::get);
+        playlist.add(all, false);
+        playlist.reshuffle();
+        List<Path> order = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) order.add(playlist.next());
+        List<Path> expected = new ArrayList<>(all);
+        Collections.reverse(expected);
+        assertEquals(expected, order);
+    }
+}
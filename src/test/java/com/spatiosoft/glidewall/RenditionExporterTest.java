@@ -0,0 +1,96 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenditionExporterTest {
+    @TempDir Path source;
+    @TempDir Path target;
+
+    private Path image(String relative, String format) throws IOException {
+        Path p = source.resolve(relative);
+        Files.createDirectories(p.getParent());
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), format, p.toFile());
+        return p;
+    }
+
+    private RenditionExporter.Result export() throws IOException {
+        return new RenditionExporter(source, target, 200, 200, 50, 0.8f, false, 2).export(line -> {});
+    }
+
+    @Test
+    void renditionNamesNeverCollide() {
+        assertEquals(Path.of("photo.jpg"), RenditionExporter.jpegName(Path.of("photo.jpg")));
+        assertEquals(Path.of("d", "b.JPEG"), RenditionExporter.jpegName(Path.of("d", "b.JPEG")));
+        assertEquals(Path.of("a.png.jpg"), RenditionExporter.jpegName(Path.of("a.png")));
+        assertEquals(Path.of("a.png.jpg.jpg"), RenditionExporter.jpegName(Path.of("a.png.jpg")));
+        assertEquals(Path.of("notes.txt.jpg"), RenditionExporter.jpegName(Path.of("notes.txt.jpg"))); // not an image stem
+    }
+
+    @Test
+    void exportWritesRenditionsThumbnailsAndPlaylist() throws IOException {
+        image("a.png", "png");
+        image("sub/b.jpg", "jpg");
+        Files.writeString(source.resolve("notes.txt"), "not an image");
+        RenditionExporter.Result r = export();
+        assertEquals(2, r.converted());
+        assertEquals(0, r.failed());
+        for (String out : List.of("a.png.jpg", "sub/b.jpg")) {
+            BufferedImage rendition = ImageIO.read(target.resolve(out).toFile());
+            assertEquals(200, rendition.getWidth(), out);
+            BufferedImage thumb = ImageIO.read(target.resolve(RenditionExporter.THUMBS_DIR).resolve(out).toFile());
+            assertEquals(50, thumb.getWidth(), out);
+        }
+        assertEquals(List.of("a.png.jpg", "sub/b.jpg"), Files.readAllLines(target.resolve(RenditionExporter.PLAYLIST), StandardCharsets.UTF_8));
+        assertTrue(RenditionExporter.isExport(target));
+        assertFalse(RenditionExporter.isExport(source));
+    }
+
+    @Test
+    void rerunsConvertOnlyChangesAndDeleteOnlyTheirOwnOutput() throws IOException {
+        image("a.png", "png");
+        Path b = image("b.jpg", "jpg");
+        export();
+        Files.writeString(target.resolve("keep.txt"), "mine");
+        Files.copy(target.resolve("a.png.jpg"), target.resolve("mine.jpg"));
+        RenditionExporter.Result again = export();
+        assertEquals(0, again.converted());
+        assertEquals(2, again.unchanged());
+
+        Files.delete(b);
+        RenditionExporter.Result after = export();
+        assertEquals(1, after.removed());
+        assertFalse(Files.exists(target.resolve("b.jpg")));
+        assertFalse(Files.exists(target.resolve(RenditionExporter.THUMBS_DIR).resolve("b.jpg")));
+        assertTrue(Files.exists(target.resolve("keep.txt")));
+        assertTrue(Files.exists(target.resolve("mine.jpg")));
+        assertEquals(List.of("a.png.jpg"), Files.readAllLines(target.resolve(RenditionExporter.PLAYLIST), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportedThumbIsOnlyUsedWhileCurrent() throws IOException {
+        image("a.png", "png");
+        export();
+        Path rendition = target.resolve("a.png.jpg"), thumb = target.resolve(RenditionExporter.THUMBS_DIR).resolve("a.png.jpg");
+        assertEquals(thumb, RenditionExporter.exportedThumb(target, rendition));
+        assertNull(RenditionExporter.exportedThumb(target, thumb));
+        assertNull(RenditionExporter.exportedThumb(target, source.resolve("a.png")));
+        Files.setLastModifiedTime(rendition, FileTime.fromMillis(Files.getLastModifiedTime(thumb).toMillis() + 60_000)); // replaced by hand
+        assertNull(RenditionExporter.exportedThumb(target, rendition));
+    }
+}
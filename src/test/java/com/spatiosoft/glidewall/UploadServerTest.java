@@ -0,0 +1,155 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadServerTest {
+    private static final String BOUNDARY = "glidewall-test";
+    private static final long MAX_BYTES = 4096;
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R', 0, 0, 0, 1, 0, 0, 0, 1, 8, 2, 0, 0, 0};
+
+    @TempDir Path folder;
+    @TempDir Path cache;
+    private final List<Path> saved = new CopyOnWriteArrayList<>();
+    private UploadServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = UploadServer.start(folder, 0, MAX_BYTES, new RenditionStore(cache, 1 << 20, 1), saved::addAll, line -> {});
+    }
+
+    @AfterEach
+    void stop() { server.close(); }
+
+    private HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.port() + path).openConnection();
+    }
+
+    private static byte[] multipart(String filename, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"files\"; filename=\"" + filename + "\"\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(content);
+        out.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private int post(byte[] body, boolean chunked) throws IOException {
+        HttpURLConnection c = open("/");
+        c.setRequestMethod("POST");
+        c.setInstanceFollowRedirects(false);
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+        if (chunked) c.setChunkedStreamingMode(512); else c.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = c.getOutputStream()) { out.write(body); }
+        return c.getResponseCode();
+    }
+
+    private List<Path> folderContents() throws IOException {
+        try (Stream<Path> s = Files.list(folder)) { return s.toList(); }
+    }
+
+    @Test
+    void uploadIsSavedUnderASafeName() throws IOException {
+        assertEquals(303, post(multipart("../My Photo.jpeg", PNG), false));
+        Path expected = folder.resolve("My_Photo.png");
+        assertEquals(List.of(expected), saved);
+        assertEquals(List.of(expected), folderContents());
+        assertArrayEquals(PNG, Files.readAllBytes(expected));
+    }
+
+    @Test
+    void oversizedUploadsAreRejectedWithoutSavingAnything() throws IOException {
+        byte[] body = multipart("big.png", concat(PNG, new byte[(int) MAX_BYTES]));
+        assertEquals(413, post(body, false)); // declared Content-Length
+        assertEquals(413, post(body, true)); // chunked: cut off while streaming
+        assertTrue(saved.isEmpty());
+        assertTrue(folderContents().isEmpty(), "left behind: " + folderContents());
+    }
+
+    @Test
+    void originalsSupportRangesAndRevalidation() throws IOException {
+        byte[] data = concat(PNG, "0123456789".getBytes(StandardCharsets.US_ASCII));
+        Files.write(folder.resolve("a.png"), data);
+        HttpURLConnection full = open("/a.png");
+        assertEquals(200, full.getResponseCode());
+        String etag = full.getHeaderField("ETag");
+        try (InputStream in = full.getInputStream()) { assertArrayEquals(data, in.readAllBytes()); }
+
+        HttpURLConnection part = open("/a.png");
+        part.setRequestProperty("Range", "bytes=2-5");
+        assertEquals(206, part.getResponseCode());
+        assertEquals("bytes 2-5/" + data.length, part.getHeaderField("Content-Range"));
+        try (InputStream in = part.getInputStream()) { assertArrayEquals(new byte[] {'N', 'G', '\r', '\n'}, in.readAllBytes()); }
+
+        HttpURLConnection stale = open("/a.png");
+        stale.setRequestProperty("Range", "bytes=2-5");
+        stale.setRequestProperty("If-Range", "\"other\"");
+        assertEquals(200, stale.getResponseCode());
+        stale.getInputStream().close();
+
+        HttpURLConnection cached = open("/a.png");
+        cached.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, cached.getResponseCode());
+    }
+
+    @Test
+    void rangeHeaders() {
+        assertArrayEquals(new long[] {0, 9}, UploadServer.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[] {90, 99}, UploadServer.parseRange("bytes=-10", 100));
+        assertArrayEquals(new long[] {0, 99}, UploadServer.parseRange("bytes=-500", 100));
+        assertArrayEquals(new long[] {95, 99}, UploadServer.parseRange("bytes=95-", 100));
+        assertArrayEquals(new long[] {95, 99}, UploadServer.parseRange("bytes=95-1000", 100));
+        assertNull(UploadServer.parseRange("bytes=100-", 100));
+        assertNull(UploadServer.parseRange("bytes=-0", 100));
+        assertNull(UploadServer.parseRange("bytes=0-", 0));
+        assertArrayEquals(new long[0], UploadServer.parseRange("bytes=0-1,5-6", 100));
+        assertArrayEquals(new long[0], UploadServer.parseRange("bytes=9-2", 100));
+        assertArrayEquals(new long[0], UploadServer.parseRange("bytes=x-y", 100));
+        assertArrayEquals(new long[0], UploadServer.parseRange("items=0-9", 100));
+    }
+
+    @Test
+    void entityTags() {
+        assertTrue(UploadServer.matchesEtag("*", "\"a\""));
+        assertTrue(UploadServer.matchesEtag("\"b\", \"a\"", "\"a\""));
+        assertTrue(UploadServer.matchesEtag("W/\"a\"", "\"a\""));
+        assertFalse(UploadServer.matchesEtag("\"ab\"", "\"a\""));
+    }
+
+    @Test
+    void filenamesAreSanitized() {
+        assertEquals("passwd.jpg", UploadServer.safeFilename("../../etc/passwd", "jpg"));
+        assertEquals("shot.png", UploadServer.safeFilename("C:\\Users\\me\\shot.PNG", "png"));
+        assertEquals("holiday_2024_final.jpeg", UploadServer.safeFilename("holiday 2024.final.JPEG", "jpg"));
+        assertEquals("evil.gif", UploadServer.safeFilename("evil.html", "gif"));
+        assertEquals("file.webp", UploadServer.safeFilename("<>.webp", "webp"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.spatiosoft.glidewall;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatchEventBatcherTest {
+    private static final long QUIET = 40;
+
+    @TempDir Path dir;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final BlockingQueue<WatchEventBatcher.ChangeSet> batches = new LinkedBlockingQueue<>();
+    private final WatchEventBatcher batcher = new WatchEventBatcher(timer, QUIET, 10 * QUIET, batches::add);
+
+    @AfterEach
+    void stop() {
+        batcher.close();
+        timer.shutdownNow();
+    }
+
+    // Written a while ago: stable at the first probe.
+    private Path settled(String name) throws IOException {
+        Path p = Files.write(dir.resolve(name), new byte[] {1, 2, 3});
+        Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        return p;
+    }
+
+    private WatchEventBatcher.ChangeSet next() throws InterruptedException {
+        WatchEventBatcher.ChangeSet batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch, "no batch published");
+        return batch;
+    }
+
+    @Test
+    void burstIsPublishedAsOneBatch() throws Exception {
+        Path a = settled("a.jpg"), b = settled("b.jpg");
+        batcher.event(WatchEventBatcher.Kind.CREATED, a);
+        batcher.event(WatchEventBatcher.Kind.MODIFIED, a);
+        batcher.event(WatchEventBatcher.Kind.MODIFIED, b);
+        batcher.event(WatchEventBatcher.Kind.DELETED, dir.resolve("c.jpg"));
+        batcher.rescan(dir);
+        WatchEventBatcher.ChangeSet batch = next();
+        assertEquals(List.of(a), batch.created());
+        assertEquals(List.of(b), batch.modified());
+        assertEquals(List.of(dir.resolve("c.jpg")), batch.deleted());
+        assertEquals(List.of(dir), batch.rescanDirs());
+        assertEquals(5, batcher.eventCount());
+        assertNull(batches.poll(3 * QUIET, TimeUnit.MILLISECONDS));
+        assertEquals(1, batcher.batchCount());
+    }
+
+    @Test
+    void deleteAfterCreateWins() throws Exception {
+        Path a = settled("a.jpg");
+        batcher.event(WatchEventBatcher.Kind.CREATED, a);
+        Files.delete(a);
+        batcher.event(WatchEventBatcher.Kind.DELETED, a);
+        WatchEventBatcher.ChangeSet batch = next();
+        assertTrue(batch.created().isEmpty());
+        assertEquals(List.of(a), batch.deleted());
+    }
+
+    @Test
+    void fileStillBeingWrittenStaysPending() throws Exception {
+        Path upload = Files.write(dir.resolve("upload.jpg"), new byte[] {1});
+        batcher.event(WatchEventBatcher.Kind.CREATED, upload);
+        long until = System.currentTimeMillis() + 6 * QUIET;
+        while (System.currentTimeMillis() < until) {
+            Files.write(upload, new byte[] {2}, StandardOpenOption.APPEND);
+            Thread.sleep(QUIET / 4);
+        }
+        assertTrue(batches.isEmpty(), "published while the writer was busy");
+        assertEquals(1, batcher.pendingCount());
+        assertEquals(List.of(upload), next().created());
+    }
+
+    @Test
+    void closeDropsPendingEvents() throws Exception {
+        batcher.event(WatchEventBatcher.Kind.CREATED, settled("a.jpg"));
+        batcher.close();
+        assertEquals(0, batcher.pendingCount());
+        assertNull(batches.poll(3 * QUIET, TimeUnit.MILLISECONDS));
+    }
+}